@@ -0,0 +1,65 @@
+package com.rajitha.kafka.benchmarks;
+
+import com.rajitha.kafka.service.CapacityPreflight;
+import com.rajitha.kafka.service.ConfigDiffer;
+import com.rajitha.kafka.service.TopicPlanner;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Config diff of one topic with large config maps, every 10th value differs and every 7th is written in another form
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ConfigDiffBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int configSize;
+
+    private final TopicPlanner topicPlanner = new TopicPlanner(true, false, new CapacityPreflight());
+    private final ConfigDiffer configDiffer = new ConfigDiffer(true);
+    private Map<String, String> fileConfig;
+    private Map<String, String> clusterValues;
+    private Config clusterConfig;
+
+    @Setup
+    public void setUp() {
+        fileConfig = new HashMap<>();
+        clusterValues = new HashMap<>();
+        List<ConfigEntry> entries = new ArrayList<>();
+        for (int i = 0; i < configSize; i++) {
+            String key = "config.key." + i;
+            String value = i % 7 == 0 ? "TRUE" : String.valueOf(i * 1000L);
+            String clusterValue = i % 10 == 0 ? "changed" : i % 7 == 0 ? "true" : value;
+            fileConfig.put(key, value);
+            clusterValues.put(key, clusterValue);
+            entries.add(new ConfigEntry(key, clusterValue, ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG, false, false,
+                    List.of(), ConfigEntry.ConfigType.STRING, null));
+        }
+        // Overrides that are no longer in the file, they become deletes
+        for (int i = 0; i < configSize / 10; i++) {
+            entries.add(new ConfigEntry("removed.key." + i, "1", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG, false, false,
+                    List.of(), ConfigEntry.ConfigType.STRING, null));
+        }
+        clusterConfig = new Config(entries);
+    }
+
+    @Benchmark
+    public Map<String, String> compareConfigurations() {
+        return topicPlanner.compareConfigurations(fileConfig, clusterValues);
+    }
+
+    @Benchmark
+    public ConfigDiffer.ConfigChanges diffDescribedConfig() {
+        return configDiffer.diff(fileConfig, clusterConfig);
+    }
+}
@@ -0,0 +1,91 @@
+package com.rajitha.kafka.benchmarks;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.AdminClientFactory;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicSpec;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.LatencyMockAdminClient;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Synthetic topic specs and a mock cluster that already holds most of them, with a share of drifted topics
+public final class MockCluster {
+    public static final ClusterKey CLUSTER = new ClusterKey("bench", "dev");
+    public static final List<Node> BROKERS = List.of(new Node(0, "broker-0", 9092), new Node(1, "broker-1", 9092), new Node(2, "broker-2", 9092));
+
+    private MockCluster() {
+    }
+
+    public static List<TopicSpec> specs(int topics) {
+        List<TopicSpec> specs = new ArrayList<>(topics);
+        for (int i = 0; i < topics; i++) {
+            specs.add(new TopicSpec(topicName(i), CLUSTER, i % 50 == 0 ? 6 : 3, 3, config(i, false), "topics/bench-" + (i / 100) + ".yaml"));
+        }
+        return specs;
+    }
+
+    // 80% of the topics exist; every 10th existing topic has a drifted config and every 50th needs more partitions
+    public static LatencyMockAdminClient cluster(int topics, long latencyMs) {
+        LatencyMockAdminClient adminClient = new LatencyMockAdminClient(BROKERS, latencyMs);
+        for (int i = 0; i < topics; i++) {
+            if (i % 5 == 4) {
+                continue;
+            }
+            List<TopicPartitionInfo> partitions = new ArrayList<>();
+            for (int partition = 0; partition < 3; partition++) {
+                partitions.add(new TopicPartitionInfo(partition, BROKERS.get(partition), BROKERS, BROKERS));
+            }
+            adminClient.addTopic(false, topicName(i), partitions, config(i, i % 10 == 0));
+        }
+        return adminClient;
+    }
+
+    // An AdminClientFactory that hands out the mocks instead of connecting to brokers, one per cluster or the same for all
+    public static final class Factory extends AdminClientFactory {
+        private volatile AdminClient adminClient;
+        private final Map<ClusterKey, AdminClient> clusterAdminClients = new ConcurrentHashMap<>();
+
+        // No cluster is ever resolved through the configuration, the pool only needs its defaults
+        public Factory() {
+            super(AppConfig.of(new Properties()));
+        }
+
+        public void use(AdminClient adminClient) {
+            this.adminClient = adminClient;
+        }
+
+        public void use(ClusterKey clusterKey, AdminClient adminClient) {
+            clusterAdminClients.put(clusterKey, adminClient);
+        }
+
+        @Override
+        public AdminClient getAdminClient(ClusterKey clusterKey) {
+            return clusterAdminClients.getOrDefault(clusterKey, adminClient);
+        }
+
+        @Override
+        public void releaseAdminClient(ClusterKey clusterKey) {
+        }
+    }
+
+    public static String topicName(int index) {
+        return "bench.topic." + index;
+    }
+
+    private static Map<String, String> config(int index, boolean drifted) {
+        Map<String, String> config = new LinkedHashMap<>();
+        config.put("retention.ms", drifted ? "86400000" : "604800000");
+        config.put("cleanup.policy", "delete");
+        config.put("min.insync.replicas", "2");
+        config.put("segment.bytes", String.valueOf(1 << 30));
+        return config;
+    }
+}
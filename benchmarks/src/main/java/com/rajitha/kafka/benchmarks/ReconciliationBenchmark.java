@@ -0,0 +1,81 @@
+package com.rajitha.kafka.benchmarks;
+
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.ReconciliationPlan;
+import com.rajitha.kafka.model.TopicSpec;
+import com.rajitha.kafka.service.CapacityPreflight;
+import com.rajitha.kafka.service.ConsumerGroupInitializer;
+import com.rajitha.kafka.service.MutationThrottle;
+import com.rajitha.kafka.service.ReconciliationEngine;
+import com.rajitha.kafka.service.ReplicaReassigner;
+import com.rajitha.kafka.service.RetryPolicy;
+import com.rajitha.kafka.service.TopicDeleter;
+import com.rajitha.kafka.service.TopicPlanner;
+import com.rajitha.kafka.service.TopicService;
+import org.apache.kafka.clients.admin.LatencyMockAdminClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end plan and reconcile of a whole cluster; with latencyMs > 0 the number of round trips dominates the result
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn"})
+public class ReconciliationBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int topics;
+
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    private List<TopicSpec> specs;
+    private MockCluster.Factory adminClientFactory;
+    private ReconciliationEngine reconciliationEngine;
+    private TopicService topicService;
+    private LatencyMockAdminClient adminClient;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        specs = MockCluster.specs(topics);
+        adminClientFactory = new MockCluster.Factory();
+        reconciliationEngine = new ReconciliationEngine(adminClientFactory);
+        topicService = new TopicService(reconciliationEngine, new TopicPlanner(true, false, new CapacityPreflight()), new TopicDeleter(), RetryPolicy.NONE,
+                new ReplicaReassigner(), new MutationThrottle(), new ConsumerGroupInitializer());
+    }
+
+    // Every iteration starts from the same drifted cluster
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        adminClient = MockCluster.cluster(topics, latencyMs);
+        adminClientFactory.use(adminClient);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        System.out.printf("%n%d admin requests%n", adminClient.requestCount());
+        adminClient.close(Duration.ZERO);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        reconciliationEngine.close();
+        adminClientFactory.close();
+    }
+
+    @Benchmark
+    public ReconciliationPlan plan() throws InterruptedException {
+        return topicService.plan(null, specs);
+    }
+
+    @Benchmark
+    public Map<ClusterKey, Map<String, String>> reconcile() throws InterruptedException {
+        return topicService.reconcile(specs);
+    }
+}
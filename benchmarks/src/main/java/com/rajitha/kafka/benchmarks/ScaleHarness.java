@@ -0,0 +1,325 @@
+package com.rajitha.kafka.benchmarks;
+
+import com.rajitha.kafka.Main;
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.service.ReconciliationEngine;
+import com.rajitha.kafka.service.TopicService;
+import com.rajitha.kafka.utils.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.kafka.clients.admin.LatencyMockAdminClient;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Offline end-to-end run of Main at scale: a synthetic bare git repository with one topic file per topic spread over
+// the clusters, a stub Bitbucket server that reports every file as added by one pull request, and one mock admin client
+// per cluster. Prints the wall time, the heap high-water mark and the admin requests per operation.
+//
+// java -Xmx8g -cp target/benchmarks.jar com.rajitha.kafka.benchmarks.ScaleHarness [topics] [clusters] [existingPercent] [latencyMs] [workDir]
+//
+// Application properties can be overridden with -Dharness.<property>=<value>, e.g. -Dharness.adminBatchSize=1000
+public final class ScaleHarness {
+    private static final String PROJECT_KEY = "HARNESS";
+    private static final String REPOSITORY_SLUG = "topics";
+    private static final String BRANCH = "master";
+    private static final int PULL_REQUEST_ID = 1;
+    private static final String PROPERTY_PREFIX = "harness.";
+
+    private ScaleHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Per-topic logging would dominate the run, it is switched on again with -Dorg.slf4j.simpleLogger.defaultLogLevel=info
+        if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+            System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+        }
+        int topics = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int clusters = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int existingPercent = args.length > 2 ? Integer.parseInt(args[2]) : 80;
+        long latencyMs = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        Path workDir = args.length > 4 ? Path.of(args[4]) : Files.createTempDirectory("topic-harness");
+        Files.createDirectories(workDir);
+
+        long generateStart = System.nanoTime();
+        Path repositoryDir = workDir.resolve("repo-" + topics + "x" + clusters + ".git");
+        String commitId = generateRepository(repositoryDir, topics, clusters);
+        List<String> topicFiles = new ArrayList<>(topics);
+        for (int i = 0; i < topics; i++) {
+            topicFiles.add(topicFile(i, clusters));
+        }
+        Map<ClusterKey, LatencyMockAdminClient> adminClients = new LinkedHashMap<>();
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            adminClients.put(clusterKey(cluster), mockCluster(cluster, topics, clusters, existingPercent, latencyMs));
+        }
+        System.out.printf("Generated %d topic files on %d clusters in %d ms, commit %s in %s%n", topics, clusters,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - generateStart), commitId, repositoryDir);
+
+        AtomicLong stubRequests = new AtomicLong();
+        HttpServer server = stubBitbucket(commitId, topicFiles, stubRequests);
+        MockCluster.Factory adminClientFactory = new MockCluster.Factory();
+        adminClients.forEach(adminClientFactory::use);
+        Path configFile = writeConfig(workDir, repositoryDir, server.getAddress().getPort());
+        AppConfig appConfig = AppConfig.load(configFile.toString());
+        ReconciliationEngine engine = new ReconciliationEngine(adminClientFactory, appConfig);
+        TopicService topicService = TopicService.fromConfig(engine, appConfig);
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        Metrics.reset();
+        long start = System.nanoTime();
+        try {
+            new Main(topicService, appConfig).run(new String[]{configFile.toString(), "harness", "harness", commitId,
+                    "--report", workDir.resolve("report.jsonl").toString()});
+        } finally {
+            long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // The sum of the pool peaks, the pools may peak at different moments so this is an upper bound
+            long heapPeakBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+            server.stop(0);
+            engine.close();
+            Metrics.writeSummary(workDir.resolve("metrics.json"));
+            printSummary(topics, clusters, wallMs, heapPeakBytes, stubRequests.get(), adminClients, workDir);
+            adminClients.values().forEach(adminClient -> adminClient.close(Duration.ZERO));
+        }
+    }
+
+    private static ClusterKey clusterKey(int cluster) {
+        return new ClusterKey("harness-" + cluster, "dev");
+    }
+
+    private static String topicName(int index) {
+        return "harness.topic." + index;
+    }
+
+    // Topic i belongs to cluster i % clusters, the files of a cluster share a directory
+    private static String topicFile(int index, int clusters) {
+        return "topics/" + clusterKey(index % clusters).name() + "/" + topicName(index) + ".yaml";
+    }
+
+    private static int partitions(int index) {
+        return index % 50 == 0 ? 6 : 3;
+    }
+
+    private static String topicYaml(int index, int clusters) {
+        ClusterKey cluster = clusterKey(index % clusters);
+        return "topicName: " + topicName(index) + "\n"
+                + "spec:\n"
+                + "  target-cluster:\n"
+                + "    name: " + cluster.name() + "\n"
+                + "    env: " + cluster.env() + "\n"
+                + "  partitions: " + partitions(index) + "\n"
+                + "  replication-factor: 3\n"
+                + "  config:\n"
+                + "    retention.ms: 604800000\n"
+                + "    cleanup.policy: delete\n"
+                + "    min.insync.replicas: 2\n";
+    }
+
+    // The blobs and trees are written straight into a bare repository, 100k files need no working tree and no index on disk.
+    // A repository generated by an earlier run with the same sizes is reused, so its spec cache and fetched commit stay valid
+    private static String generateRepository(Path repositoryDir, int topics, int clusters) throws IOException {
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(repositoryDir.toFile()).build()) {
+            if (!repositoryDir.resolve("HEAD").toFile().exists()) {
+                repository.create(true);
+            }
+            ObjectId head = repository.resolve(Constants.R_HEADS + BRANCH);
+            if (head != null) {
+                return head.name();
+            }
+            StoredConfig config = repository.getConfig();
+            // Main fetches the commit by its id
+            config.setBoolean("uploadpack", null, "allowReachableSHA1InWant", true);
+            config.save();
+
+            try (ObjectInserter inserter = repository.newObjectInserter()) {
+                DirCache index = DirCache.newInCore();
+                DirCacheBuilder builder = index.builder();
+                List<String> paths = new ArrayList<>(topics);
+                Map<String, Integer> indexes = new HashMap<>();
+                for (int i = 0; i < topics; i++) {
+                    paths.add(topicFile(i, clusters));
+                    indexes.put(paths.get(i), i);
+                }
+                // The index expects its entries in path order
+                Collections.sort(paths);
+                for (String path : paths) {
+                    DirCacheEntry entry = new DirCacheEntry(path);
+                    entry.setFileMode(FileMode.REGULAR_FILE);
+                    entry.setObjectId(inserter.insert(Constants.OBJ_BLOB, topicYaml(indexes.get(path), clusters).getBytes(StandardCharsets.UTF_8)));
+                    builder.add(entry);
+                }
+                builder.finish();
+                ObjectId tree = index.writeTree(inserter);
+
+                CommitBuilder commit = new CommitBuilder();
+                PersonIdent author = new PersonIdent("Topic Harness", "harness@localhost");
+                commit.setAuthor(author);
+                commit.setCommitter(author);
+                commit.setMessage("Add " + topics + " synthetic topics\n");
+                commit.setTreeId(tree);
+                ObjectId commitId = inserter.insert(commit);
+                inserter.flush();
+
+                RefUpdate refUpdate = repository.updateRef(Constants.R_HEADS + BRANCH);
+                refUpdate.setNewObjectId(commitId);
+                refUpdate.update();
+                return commitId.name();
+            }
+        }
+    }
+
+    // existingPercent of the topics of the cluster exist already; every 10th existing topic has a drifted config and every
+    // 50th needs more partitions, so the run creates, alters and adds partitions
+    private static LatencyMockAdminClient mockCluster(int cluster, int topics, int clusters, int existingPercent, long latencyMs) {
+        LatencyMockAdminClient adminClient = new LatencyMockAdminClient(MockCluster.BROKERS, latencyMs);
+        for (int i = cluster; i < topics; i += clusters) {
+            if ((i / clusters) % 100 >= existingPercent) {
+                continue;
+            }
+            List<TopicPartitionInfo> partitions = new ArrayList<>();
+            for (int partition = 0; partition < 3; partition++) {
+                partitions.add(new TopicPartitionInfo(partition, MockCluster.BROKERS.get(partition), MockCluster.BROKERS, MockCluster.BROKERS));
+            }
+            Map<String, String> config = new HashMap<>();
+            config.put("retention.ms", i % 10 == 0 ? "86400000" : "604800000");
+            config.put("cleanup.policy", "delete");
+            config.put("min.insync.replicas", "2");
+            adminClient.addTopic(false, topicName(i), partitions, config);
+        }
+        return adminClient;
+    }
+
+    // Answers the two Bitbucket calls of Main: the pull request of the commit and its change list, page by page
+    private static HttpServer stubBitbucket(String commitId, List<String> topicFiles, AtomicLong requests) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "stub-bitbucket");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        String repositoryPath = "/rest/api/1.0/projects/" + PROJECT_KEY + "/repos/" + REPOSITORY_SLUG;
+        server.createContext(repositoryPath + "/commits/" + commitId + "/pull-requests", exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, new JSONObject().put("values", new JSONArray().put(new JSONObject().put("id", PULL_REQUEST_ID))).put("isLastPage", true));
+        });
+        server.createContext(repositoryPath + "/pull-requests/" + PULL_REQUEST_ID + "/changes", exchange -> {
+            requests.incrementAndGet();
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            int start = Integer.parseInt(query.getOrDefault("start", "0"));
+            int limit = Integer.parseInt(query.getOrDefault("limit", "500"));
+            int end = Math.min(topicFiles.size(), start + limit);
+            JSONArray values = new JSONArray();
+            for (int i = start; i < end; i++) {
+                values.put(new JSONObject()
+                        .put("path", new JSONObject().put("toString", topicFiles.get(i)))
+                        .put("properties", new JSONObject().put("gitChangeType", "ADD")));
+            }
+            JSONObject page = new JSONObject().put("values", values).put("start", start).put("limit", limit)
+                    .put("size", values.length()).put("isLastPage", end >= topicFiles.size());
+            if (end < topicFiles.size()) {
+                page.put("nextPageStart", end);
+            }
+            respond(exchange, page);
+        });
+        server.start();
+        return server;
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0) {
+                    query.put(parameter.substring(0, separator), parameter.substring(separator + 1));
+                }
+            }
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static Path writeConfig(Path workDir, Path repositoryDir, int port) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("repoPath", repositoryDir.toUri().toString());
+        properties.setProperty("targetDir", workDir.resolve("clone").toString());
+        properties.setProperty("branch", BRANCH);
+        properties.setProperty("syncMode", "objects");
+        properties.setProperty("gitCacheDir", workDir.resolve("clone.git").toString());
+        properties.setProperty("topicSpecCacheFile", workDir.resolve("specs.cache").toString());
+        properties.setProperty("bitbucketBaseUrl", "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port);
+        properties.setProperty("projectKey", PROJECT_KEY);
+        properties.setProperty("repositorySlug", REPOSITORY_SLUG);
+        properties.setProperty("reconcileThreads", "8");
+        properties.setProperty("maxInFlightRequestsPerCluster", "4");
+        properties.setProperty("adminBatchSize", "500");
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PROPERTY_PREFIX)) {
+                properties.setProperty(name.substring(PROPERTY_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        Path configFile = workDir.resolve("harness.properties");
+        try (Writer writer = Files.newBufferedWriter(configFile, StandardCharsets.UTF_8)) {
+            properties.store(writer, "Generated by ScaleHarness");
+        }
+        return configFile;
+    }
+
+    private static void printSummary(int topics, int clusters, long wallMs, long heapPeakBytes, long stubRequests,
+                                     Map<ClusterKey, LatencyMockAdminClient> adminClients, Path workDir) {
+        Map<String, Long> requestsByOperation = new TreeMap<>();
+        long adminRequests = 0;
+        JSONArray counters = Metrics.summary().getJSONArray("counters");
+        for (int i = 0; i < counters.length(); i++) {
+            JSONObject counter = counters.getJSONObject(i);
+            if ("admin_requests".equals(counter.getString("name"))) {
+                requestsByOperation.merge(counter.getJSONObject("tags").optString("operation", "unknown"), counter.getLong("value"), Long::sum);
+                adminRequests += counter.getLong("value");
+            }
+        }
+        long mockRequests = adminClients.values().stream().mapToLong(LatencyMockAdminClient::requestCount).sum();
+        System.out.printf("%n%d topics on %d clusters%n", topics, clusters);
+        System.out.printf("Wall time          : %d ms%n", wallMs);
+        System.out.printf("Heap high-water    : %d MB (max heap %d MB)%n", heapPeakBytes >> 20, Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("Bitbucket requests : %d%n", stubRequests);
+        System.out.printf("Admin requests     : %d (%d seen by the mock clusters)%n", adminRequests, mockRequests);
+        requestsByOperation.forEach((operation, count) -> System.out.printf("  %-28s %d%n", operation, count));
+        System.out.printf("Report, metrics and spec cache in %s%n", workDir.toAbsolutePath());
+    }
+}
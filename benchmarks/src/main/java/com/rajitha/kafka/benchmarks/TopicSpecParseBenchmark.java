@@ -0,0 +1,55 @@
+package com.rajitha.kafka.benchmarks;
+
+import com.rajitha.kafka.model.TopicSpec;
+import com.rajitha.kafka.utils.TopicSpecLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Cost of parsing one topic file; divide by documentsPerFile for the cost per topic spec
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class TopicSpecParseBenchmark {
+
+    @Param({"1", "100"})
+    public int documentsPerFile;
+
+    @Param({"5", "50"})
+    public int configEntries;
+
+    private final TopicSpecLoader topicSpecLoader = new TopicSpecLoader();
+    private byte[] topicFile;
+
+    @Setup
+    public void setUp() {
+        StringBuilder yaml = new StringBuilder();
+        for (int document = 0; document < documentsPerFile; document++) {
+            if (document > 0) {
+                yaml.append("---\n");
+            }
+            yaml.append("topicName: bench.topic.").append(document).append('\n')
+                    .append("spec:\n")
+                    .append("  target-cluster: {name: bench, env: dev}\n")
+                    .append("  partitions: 6\n")
+                    .append("  replication-factor: 3\n")
+                    .append("  config:\n");
+            for (int entry = 0; entry < configEntries; entry++) {
+                yaml.append("    config.key.").append(entry).append(": ").append(entry * 1000L).append('\n');
+            }
+        }
+        topicFile = yaml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<TopicSpec> parse() {
+        return topicSpecLoader.parse(new ByteArrayInputStream(topicFile), "topics/bench.yaml", new ArrayList<>());
+    }
+}
@@ -0,0 +1,143 @@
+package org.apache.kafka.clients.admin;
+
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicCollection;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.InvalidPartitionsException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// MockAdminClient whose requests complete after a fixed round trip latency, with createPartitions implemented.
+// It lives in the admin package because the result classes can only be built from here
+public class LatencyMockAdminClient extends MockAdminClient {
+    private final long latencyMs;
+    private final ScheduledExecutorService responder;
+    private final AtomicLong requests = new AtomicLong();
+
+    public LatencyMockAdminClient(List<Node> brokers, long latencyMs) {
+        super(brokers, brokers.get(0));
+        this.latencyMs = latencyMs;
+        this.responder = Executors.newScheduledThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "mock-admin-responder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Number of admin requests issued so far, every call counts as one round trip whatever its size
+    public long requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public ListTopicsResult listTopics(ListTopicsOptions options) {
+        return new ListTopicsResult(delay(super.listTopics(options).namesToListings()));
+    }
+
+    @Override
+    public DescribeTopicsResult describeTopics(TopicCollection topics, DescribeTopicsOptions options) {
+        return DescribeTopicsResult.ofTopicNames(delay(super.describeTopics(topics, options).topicNameValues()));
+    }
+
+    @Override
+    public DescribeConfigsResult describeConfigs(Collection<ConfigResource> resources, DescribeConfigsOptions options) {
+        return new DescribeConfigsResult(delay(super.describeConfigs(resources, options).values()));
+    }
+
+    @Override
+    public CreateTopicsResult createTopics(Collection<NewTopic> newTopics, CreateTopicsOptions options) {
+        // Only the completion of the futures is used by the reconciliation, not the returned metadata
+        Map<String, KafkaFuture<CreateTopicsResult.TopicMetadataAndConfig>> futures = new HashMap<>();
+        super.createTopics(newTopics, options).values().forEach((topicName, future) ->
+                futures.put(topicName, future.thenApply(ignored -> (CreateTopicsResult.TopicMetadataAndConfig) null)));
+        return new CreateTopicsResult(delay(futures));
+    }
+
+    @Override
+    public AlterConfigsResult incrementalAlterConfigs(Map<ConfigResource, Collection<AlterConfigOp>> configs, AlterConfigsOptions options) {
+        return new AlterConfigsResult(delay(super.incrementalAlterConfigs(configs, options).values()));
+    }
+
+    @Override
+    public DeleteTopicsResult deleteTopics(TopicCollection topics, DeleteTopicsOptions options) {
+        return DeleteTopicsResult.ofTopicNames(delay(super.deleteTopics(topics, options).topicNameValues()));
+    }
+
+    // The mock does not support adding partitions, the topic is replaced by one with the new partition count and the same configs
+    @Override
+    public synchronized CreatePartitionsResult createPartitions(Map<String, NewPartitions> newPartitions, CreatePartitionsOptions options) {
+        Map<String, KafkaFuture<Void>> futures = new HashMap<>();
+        for (Map.Entry<String, NewPartitions> entry : newPartitions.entrySet()) {
+            KafkaFutureImpl<Void> future = new KafkaFutureImpl<>();
+            futures.put(entry.getKey(), future);
+            try {
+                TopicDescription description = super.describeTopics(TopicCollection.ofTopicNames(List.of(entry.getKey())), new DescribeTopicsOptions())
+                        .topicNameValues().get(entry.getKey()).get();
+                int totalCount = entry.getValue().totalCount();
+                if (totalCount <= description.partitions().size()) {
+                    future.completeExceptionally(new InvalidPartitionsException("Topic " + entry.getKey() + " already has "
+                            + description.partitions().size() + " partitions"));
+                    continue;
+                }
+                Config config = super.describeConfigs(List.of(new ConfigResource(ConfigResource.Type.TOPIC, entry.getKey())), new DescribeConfigsOptions())
+                        .all().get().values().iterator().next();
+                Map<String, String> configs = new HashMap<>();
+                config.entries().forEach(configEntry -> configs.put(configEntry.name(), configEntry.value()));
+                List<TopicPartitionInfo> partitions = new ArrayList<>(description.partitions());
+                TopicPartitionInfo first = partitions.get(0);
+                for (int partition = partitions.size(); partition < totalCount; partition++) {
+                    partitions.add(new TopicPartitionInfo(partition, first.leader(), first.replicas(), first.isr()));
+                }
+                super.deleteTopics(TopicCollection.ofTopicNames(List.of(entry.getKey())), new DeleteTopicsOptions()).all().get();
+                addTopic(description.isInternal(), entry.getKey(), partitions, configs);
+                future.complete(null);
+            } catch (Exception e) {
+                future.completeExceptionally(e.getCause() instanceof UnknownTopicOrPartitionException ? e.getCause() : e);
+            }
+        }
+        return new CreatePartitionsResult(delay(futures));
+    }
+
+    @Override
+    public synchronized void close(java.time.Duration timeout) {
+        responder.shutdownNow();
+        super.close(timeout);
+    }
+
+    private <K, V> Map<K, KafkaFuture<V>> delay(Map<K, KafkaFuture<V>> futures) {
+        requests.incrementAndGet();
+        if (latencyMs == 0) {
+            return futures;
+        }
+        // One round trip per request: all futures of the request complete together once the latency has passed
+        Map<K, KafkaFuture<V>> delayed = new HashMap<>();
+        for (Map.Entry<K, KafkaFuture<V>> entry : futures.entrySet()) {
+            delayed.put(entry.getKey(), new KafkaFutureImpl<>());
+        }
+        responder.schedule(() -> {
+            for (Map.Entry<K, KafkaFuture<V>> entry : futures.entrySet()) {
+                KafkaFutureImpl<V> target = (KafkaFutureImpl<V>) delayed.get(entry.getKey());
+                entry.getValue().whenComplete((value, error) -> {
+                    if (error != null) {
+                        target.completeExceptionally(error);
+                    } else {
+                        target.complete(value);
+                    }
+                });
+            }
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return delayed;
+    }
+
+    private <V> KafkaFuture<V> delay(KafkaFuture<V> future) {
+        return delay(Collections.singletonMap("", future)).get("");
+    }
+}
@@ -1,54 +1,131 @@
 package com.rajitha.kafka;
 
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.AdminClientFactory;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.ReconciliationPlan;
+import com.rajitha.kafka.model.TopicPlan;
+import com.rajitha.kafka.model.TopicResult;
+import com.rajitha.kafka.model.TopicSpec;
+import com.rajitha.kafka.service.DriftDaemon;
+import com.rajitha.kafka.service.ReconciliationEngine;
 import com.rajitha.kafka.service.TopicService;
 import com.rajitha.kafka.utils.BitbucketRepositoryCloner;
-import com.rajitha.kafka.config.kafkaConstants;
+import com.rajitha.kafka.utils.CheckpointJournal;
+import com.rajitha.kafka.utils.CommitRangeAnalyzer;
+import com.rajitha.kafka.utils.GitTopicReader;
+import com.rajitha.kafka.utils.Metrics;
 import com.rajitha.kafka.utils.PullRequestChangesAnalyzer;
+import com.rajitha.kafka.utils.ResultReportWriter;
+import com.rajitha.kafka.utils.TopicSpecCache;
+import com.rajitha.kafka.utils.TopicSpecLoader;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.yaml.snakeyaml.Yaml;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.List;
 import java.util.Map;
-import java.util.Properties;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import static org.apache.commons.lang3.StringUtils.repeat;
 
 public class Main {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
+    private static final String PLAN_OUT = "plan-out";
+    private static final String APPLY_PLAN = "apply-plan";
+    private static final String DAEMON = "daemon";
+    private static final String FROM = "from";
+    private static final String STATE_FILE = "state-file";
+    private static final String REPORT = "report";
+    private static final String JOURNAL = "journal";
     private final TopicService topicService;
+    private final AppConfig appConfig;
+    private final TopicSpecCache topicSpecCache;
+    private final TopicSpecLoader topicSpecLoader;
+    // Topics of the last applied plan that failed, counted from the results reported by the batches
+    private final AtomicInteger failedTopics = new AtomicInteger();
+    // Topic files of the run that could not be read or parsed and were skipped
+    private int skippedTopicFiles;
     private final String asterisks = repeat("*", 42);
     private final String equalseparater = repeat("=", 42);
 
-    public Main(TopicService topicService) {
+    public Main(TopicService topicService, AppConfig appConfig) {
         this.topicService = topicService;
+        this.appConfig = appConfig;
+        this.topicSpecCache = TopicSpecCache.fromConfig(appConfig);
+        this.topicSpecLoader = new TopicSpecLoader(topicSpecCache);
     }
 
     public void run(String[] args) {
-        if (args.length < 4) {
-            System.err.println("Insufficient number of arguments provided.");
-            System.err.println("Usage: java -jar your-jar-file.jar <config-path> <username> <password> <topic-file-names> <topic-env>");
-            System.exit(1);
+        CommandLine commandLine = checkArguments(args);
+        if (commandLine.hasOption(DAEMON)) {
+            runMode(commandLine);
+            return;
         }
+        try {
+            runMode(commandLine);
+        } finally {
+            closeTopicSpecCache();
+        }
+    }
+
+    private void runMode(CommandLine commandLine) {
 
         LOGGER.info("Application started successfully");
 
+        // A plan written by an earlier run is applied as it is, no pull request or repository is read
+        if (commandLine.hasOption(APPLY_PLAN)) {
+            applyPlanFile(commandLine, Path.of(commandLine.getOptionValue(APPLY_PLAN)));
+            return;
+        }
+        // The daemon follows the branch head instead of a single commit and keeps running
+        if (commandLine.hasOption(DAEMON)) {
+            String[] daemonArgs = commandLine.getArgs();
+            BitbucketRepositoryCloner cloner = new BitbucketRepositoryCloner(appConfig, daemonArgs[1], daemonArgs[2]);
+            DriftDaemon daemon = DriftDaemon.fromConfig(topicService, cloner, appConfig, topicSpecLoader);
+            // The daemon runs until the process is stopped, the spec cache is released then
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                daemon.close();
+                closeTopicSpecCache();
+            }, "drift-daemon-stop"));
+            daemon.start();
+            return;
+        }
+
         // Reading the args
-        String configFile = args[0];
-        String username = args[1];
-        String password = args[2];
-        String commitId = args[3];
+        String[] positionalArgs = commandLine.getArgs();
+        String configFile = positionalArgs[0];
+        String username = positionalArgs[1];
+        String password = positionalArgs[2];
+        String commitId = positionalArgs[3];
 
         LOGGER.info("Configuration path given in application is: {}", configFile);
 
-        // Creating variables and assigning values
-        String baseUrl = kafkaConstants.BITBUCKET_BASE_URL;
-        String projectKey = kafkaConstants.PROJECT_KEY;
-        String repositorySlug = kafkaConstants.REPOSITORY_SLUG;
+        // With a start commit or a state file the changed files come from git, the pull request is not looked up
+        if (commandLine.hasOption(FROM) || commandLine.hasOption(STATE_FILE)) {
+            runCommitRange(commandLine, username, password, commitId);
+            return;
+        }
+
         String[] topicFileList = null; // Initialize the variable with null
+        List<String> removedFiles = new ArrayList<>();
 
-        PullRequestChangesAnalyzer analyzer = new PullRequestChangesAnalyzer(baseUrl, username, password, projectKey, repositorySlug);
+        PullRequestChangesAnalyzer analyzer = new PullRequestChangesAnalyzer(appConfig, username, password);
 
         // Get the Pull Request ID for the specified commit
         Integer pullRequestId = analyzer.getPullRequestId(commitId);
@@ -57,14 +134,16 @@ public class Main {
             // Get the changes in the Pull Request
             Map<String, String> fileChanges = analyzer.getPullRequestChanges(pullRequestId);
             if (fileChanges != null) {
-                // Taking the fileNamePath alone in Array of String
-                topicFileList = fileChanges.keySet().toArray(new String[0]);
+                // Taking the fileNamePath alone in Array of String, deleted files are only read for the topics to delete
+                removedFiles = removedFiles(fileChanges);
+                topicFileList = fileChanges.keySet().stream().filter(path -> !fileChanges.get(path).equals(PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE))
+                        .toArray(String[]::new);
                 // Print the files Changed on the pull request
                 LOGGER.info(asterisks);
-                LOGGER.info("Files created / modified on pull request {} .",pullRequestId);
+                LOGGER.info("Files created / modified / deleted on pull request {} .",pullRequestId);
                 LOGGER.info(equalseparater);
                 for (Map.Entry<String, String> entry : fileChanges.entrySet()) {
-                    LOGGER.info("Topic File : " + entry.getKey() + ", File change type: " + entry.getValue());
+                    LOGGER.info("Topic File : {}, File change type: {}", entry.getKey(), entry.getValue());
                 }
                 LOGGER.info(asterisks);
             } else {
@@ -75,73 +154,377 @@ public class Main {
         }
 
         // Check if topicFileList is null or empty
-        if (topicFileList == null || topicFileList.length == 0) {
+        if (topicFileList == null || (topicFileList.length == 0 && removedFiles.isEmpty())) {
             LOGGER.error("No topic files found for processing.");
             System.exit(1);
         }
 
-        // Cloning the repository
+        // Syncing the repository and parsing every changed topic file, so that the topics can be reconciled as one batch per cluster
+        TopicSpecLoader.LoadResult loadResult = null;
+        List<TopicSpec> removedTopics = List.of();
         try {
-            BitbucketRepositoryCloner cloner = new BitbucketRepositoryCloner(configFile, username, password);
-            cloner.cloneOrSyncRepository();
+            BitbucketRepositoryCloner cloner = new BitbucketRepositoryCloner(appConfig, username, password);
+            loadResult = loadTopicSpecs(cloner, commitId, Arrays.asList(topicFileList));
+            if (!removedFiles.isEmpty()) {
+                // The removed files are read at the commit before the merge, where they still exist
+                String baseCommitId = cloner.parentCommitId(commitId);
+                try (Repository repository = cloner.fetchIntoBareRepository(baseCommitId, commitId)) {
+                    GitTopicReader reader = new GitTopicReader(repository, topicSpecLoader);
+                    removedTopics = removedTopics(reader, commitId, loadResult, reader.load(baseCommitId, removedFiles));
+                }
+            }
         } catch (IOException | GitAPIException e) {
             LOGGER.error("Error cloning or syncing the repository", e);
             System.exit(1); // Terminate the program with a non-zero exit code to indicate failure
         }
+        reconcileSpecs(commandLine, commitId, loadResult, removedTopics);
+    }
+
+    private static List<String> removedFiles(Map<String, String> fileChanges) {
+        List<String> removedFiles = new ArrayList<>();
+        for (Map.Entry<String, String> entry : fileChanges.entrySet()) {
+            if (PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE.equals(entry.getValue())) {
+                removedFiles.add(entry.getKey());
+            }
+        }
+        return removedFiles;
+    }
 
-        for (String topicFileName : topicFileList) {
-            LOGGER.info(asterisks+asterisks);
-            LOGGER.info("Given topic file for creation or update is: {} ", topicFileName);
-            // Calling the topic service with respected topic yaml
-            Properties config = loadConfigProperties(configFile);
-            String targetDir = config.getProperty("targetDir");
-            String filePath = generateFilePath(targetDir, topicFileName);
+    // Topics of the removed files that no topic file of the target commit declares any more, e.g. not after a rename or a
+    // move to another file. Nothing is deleted when any topic file could not be read: the topics of a renamed file that
+    // fails to parse would otherwise look removed
+    private List<TopicSpec> removedTopics(GitTopicReader reader, String commitId, TopicSpecLoader.LoadResult changedResult,
+                                          TopicSpecLoader.LoadResult removedResult) throws IOException {
+        if (changedResult.hasErrors() || removedResult.hasErrors()) {
+            LOGGER.error("Topic deletion is skipped, {} changed and {} removed topic files could not be read",
+                    changedResult.errors().size(), removedResult.errors().size());
+            return List.of();
+        }
+        // Every topic file of the commit, not only the changed ones, since an unchanged file may declare the same topic
+        Map<String, ObjectId> blobIds = reader.listTopicBlobs(commitId, appConfig.getProperty("topicsPath", ""));
+        TopicSpecLoader.LoadResult treeResult = reader.load(commitId, blobIds.keySet(), blobIds);
+        if (treeResult.hasErrors()) {
+            LOGGER.error("Topic deletion is skipped, {} topic files of commit {} could not be read", treeResult.errors().size(), commitId);
+            return List.of();
+        }
+        Set<String> declared = new HashSet<>();
+        for (TopicSpec topicSpec : treeResult.specs()) {
+            declared.add(topicSpec.cluster() + "/" + topicSpec.topicName());
+        }
+        List<TopicSpec> removedTopics = new ArrayList<>();
+        for (TopicSpec topicSpec : removedResult.specs()) {
+            if (!declared.contains(topicSpec.cluster() + "/" + topicSpec.topicName())) {
+                removedTopics.add(topicSpec);
+            }
+        }
+        LOGGER.info("{} topics of {} removed topic specs are no longer declared at commit {}", removedTopics.size(), removedResult.specs().size(), commitId);
+        return removedTopics;
+    }
 
-            try (InputStream inputStream = new FileInputStream(filePath)) {
-                // Load the YAML file
-                Yaml yaml = new Yaml();
-                Map<String, Object> data = yaml.load(inputStream);
-                topicService.createOrUpdateTopic(data);
+    // Reconciles every topic file changed between two commits, found locally in git instead of through the pull request
+    private void runCommitRange(CommandLine commandLine, String username, String password, String commitId) {
+        Path stateFile = commandLine.hasOption(STATE_FILE) ? Path.of(commandLine.getOptionValue(STATE_FILE)) : null;
+        String fromCommitId = commandLine.getOptionValue(FROM);
+        TopicSpecLoader.LoadResult loadResult = null;
+        List<TopicSpec> removedTopics = List.of();
+        try {
+            if (fromCommitId == null && stateFile != null && Files.exists(stateFile)) {
+                fromCommitId = Files.readString(stateFile, StandardCharsets.UTF_8).trim();
+            }
+            if (commitId.equals(fromCommitId)) {
+                LOGGER.info("Commit {} is already applied, nothing to do", commitId);
+                return;
+            }
+            BitbucketRepositoryCloner cloner = new BitbucketRepositoryCloner(appConfig, username, password);
+            try (Repository repository = fromCommitId == null
+                    ? cloner.fetchIntoBareRepository(commitId) : cloner.fetchIntoBareRepository(fromCommitId, commitId)) {
+                GitTopicReader reader = new GitTopicReader(repository, topicSpecLoader);
+                String topicsPath = appConfig.getProperty("topicsPath", "");
+                List<String> topicFiles;
+                List<String> removedFiles = List.of();
+                Map<String, ObjectId> blobIds = null;
+                if (fromCommitId == null) {
+                    // Nothing was applied before, every topic file of the commit is reconciled
+                    LOGGER.info("No last applied commit, reconciling all topic files of commit {}", commitId);
+                    blobIds = reader.listTopicBlobs(commitId, topicsPath);
+                    topicFiles = new ArrayList<>(blobIds.keySet());
+                } else {
+                    Map<String, String> fileChanges = new CommitRangeAnalyzer(repository, topicsPath).getChanges(fromCommitId, commitId);
+                    LOGGER.info(asterisks);
+                    LOGGER.info("Files created / modified / deleted between {} and {} .", fromCommitId, commitId);
+                    LOGGER.info(equalseparater);
+                    for (Map.Entry<String, String> entry : fileChanges.entrySet()) {
+                        LOGGER.info("Topic File : {}, File change type: {}", entry.getKey(), entry.getValue());
+                    }
+                    LOGGER.info(asterisks);
+                    removedFiles = removedFiles(fileChanges);
+                    topicFiles = new ArrayList<>(fileChanges.keySet());
+                    topicFiles.removeAll(removedFiles);
+                }
+                loadResult = blobIds == null ? reader.load(commitId, topicFiles) : reader.load(commitId, topicFiles, blobIds);
+                if (!removedFiles.isEmpty()) {
+                    // The removed files still exist at the start of the range
+                    removedTopics = removedTopics(reader, commitId, loadResult, reader.load(fromCommitId, removedFiles));
+                }
+            }
+        } catch (IOException | GitAPIException e) {
+            LOGGER.error("Error reading the commit range from the repository", e);
+            System.exit(1);
+        }
+
+        Map<ClusterKey, Map<String, String>> results = reconcileSpecs(commandLine, commitId, loadResult, removedTopics);
+        // The state only moves forward when every file of the range was read and applied, otherwise the next run retries the range
+        if (stateFile != null && results != null && !loadResult.hasErrors() && failedTopics.get() == 0) {
+            try {
+                Files.writeString(stateFile, commitId + System.lineSeparator(), StandardCharsets.UTF_8);
+                LOGGER.info("Last applied commit {} stored in {}", commitId, stateFile);
             } catch (IOException e) {
-                e.printStackTrace();
-            } catch (ExecutionException e) {
-                throw new RuntimeException(e);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
+                LOGGER.error("Unable to write the state file {}", stateFile, e);
+                System.exit(1);
+            }
+        }
+    }
+
+    // Plans the topics and applies the plan, or only writes it with --plan-out; returns null when nothing was applied
+    private Map<ClusterKey, Map<String, String>> reconcileSpecs(CommandLine commandLine, String commitId, TopicSpecLoader.LoadResult loadResult,
+                                                                List<TopicSpec> removedTopics) {
+        skippedTopicFiles = loadResult.errors().size();
+        for (Map.Entry<String, List<String>> entry : loadResult.errors().entrySet()) {
+            LOGGER.error("Topic file {} is skipped: {}", entry.getKey(), String.join(", ", entry.getValue()));
+        }
+
+        try (CheckpointJournal journal = openJournal(commandLine, commitId)) {
+            // Topics finished by an earlier run of the same commit are neither described nor applied again
+            List<TopicSpec> specs = notDone(journal, loadResult.specs());
+            removedTopics = notDone(journal, removedTopics);
+            // Every topic is diffed against its cluster before any change is made
+            ReconciliationPlan plan = topicService.plan(commitId, specs, removedTopics);
+            logPlan(plan);
+            if (commandLine.hasOption(PLAN_OUT)) {
+                Path planFile = Path.of(commandLine.getOptionValue(PLAN_OUT));
+                plan.write(planFile);
+                LOGGER.info("Plan with {} changes written to {}, nothing was applied", plan.changeCount(), planFile);
+                return null;
             }
+            Map<ClusterKey, Map<String, String>> results = applyPlan(commandLine, plan, journal);
+            logResults(results);
+            return results;
+        } catch (IOException e) {
+            LOGGER.error("Unable to write the plan, report or journal file", e);
+            System.exit(1);
+            return null;
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // With --journal the outcomes of a commit are kept across runs, so a rerun continues where the last run stopped
+    private static CheckpointJournal openJournal(CommandLine commandLine, String commitId) throws IOException {
+        if (!commandLine.hasOption(JOURNAL)) {
+            return null;
+        }
+        if (commitId == null) {
+            LOGGER.warn("The plan has no commit id, the journal is not used");
+            return null;
+        }
+        CheckpointJournal journal = new CheckpointJournal(Path.of(commandLine.getOptionValue(JOURNAL)), commitId);
+        if (journal.doneCount() > 0) {
+            LOGGER.info("Journal has {} topics of commit {} done by an earlier run, they are skipped", journal.doneCount(), commitId);
+        }
+        return journal;
+    }
+
+    private static List<TopicSpec> notDone(CheckpointJournal journal, List<TopicSpec> topicSpecs) {
+        if (journal == null) {
+            return topicSpecs;
+        }
+        return topicSpecs.stream().filter(topicSpec -> !journal.isDone(topicSpec.cluster(), topicSpec.topicName())).toList();
+    }
+
+    // With --report every topic result is streamed to the JSON Lines file while the clusters are reconciled
+    private Map<ClusterKey, Map<String, String>> applyPlan(CommandLine commandLine, ReconciliationPlan plan, CheckpointJournal journal)
+            throws IOException, InterruptedException {
+        failedTopics.set(0);
+        Consumer<List<TopicResult>> listener = batchResults -> failedTopics.addAndGet(
+                (int) batchResults.stream().filter(result -> result.status() == TopicResult.Status.FAILED).count());
+        if (journal != null) {
+            listener = listener.andThen(journal::record);
+        }
+        if (!commandLine.hasOption(REPORT)) {
+            return topicService.apply(plan, listener);
+        }
+        Path reportFile = Path.of(commandLine.getOptionValue(REPORT));
+        try (ResultReportWriter reportWriter = new ResultReportWriter(reportFile)) {
+            Map<ClusterKey, Map<String, String>> results = topicService.apply(plan, listener.andThen(reportWriter::write));
+            LOGGER.info("{} topic results written to {}", reportWriter.written(), reportFile);
+            return results;
         }
     }
 
-    private static Properties loadConfigProperties(String fileName) {
-        Properties properties = new Properties();
-        FileInputStream inputStream = null;
+    // Writes the entries parsed last and releases the mapping and the lock of the spec cache
+    private void closeTopicSpecCache() {
+        if (topicSpecCache == null) {
+            return;
+        }
         try {
-            inputStream = new FileInputStream(fileName);
-            properties.load(inputStream);
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException();
+            topicSpecCache.close();
         } catch (IOException e) {
-            throw new RuntimeException();
-        } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
+            LOGGER.warn("Unable to close the topic spec cache", e);
+        }
+    }
+
+    // A run that failed topics or skipped topic files ends with a non-zero exit code, so CI and a rerun with the journal notice it
+    public boolean succeeded() {
+        return failedTopics.get() == 0 && skippedTopicFiles == 0;
+    }
+
+    private void applyPlanFile(CommandLine commandLine, Path planFile) {
+        ReconciliationPlan plan = null;
+        try {
+            plan = ReconciliationPlan.read(planFile);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Unable to read the plan file {}", planFile, e);
+            System.exit(1);
+        }
+        LOGGER.info("Applying plan {} of commit {} created at {}", planFile, plan.commitId(), plan.createdAt());
+        try (CheckpointJournal journal = openJournal(commandLine, plan.commitId())) {
+            if (journal != null) {
+                plan = new ReconciliationPlan(plan.commitId(), plan.createdAt(),
+                        plan.topics().stream().filter(topicPlan -> !journal.isDone(topicPlan.cluster(), topicPlan.topicName())).toList());
+            }
+            logPlan(plan);
+            logResults(applyPlan(commandLine, plan, journal));
+        } catch (IOException e) {
+            LOGGER.error("Unable to write the report or journal file", e);
+            System.exit(1);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void logPlan(ReconciliationPlan plan) {
+        LOGGER.info(asterisks);
+        LOGGER.info("Plan: {} topics, {} with changes", plan.topics().size(), plan.changeCount());
+        LOGGER.info(equalseparater);
+        for (TopicPlan topicPlan : plan.topics()) {
+            if (topicPlan.action() == TopicPlan.Action.NONE) {
+                continue;
+            }
+            LOGGER.info("[{}] {} : {} partitions={} replicationFactor={} configs={} removed={} {}", topicPlan.cluster(), topicPlan.topicName(),
+                    topicPlan.action(), topicPlan.partitions(), topicPlan.replicationFactor(), topicPlan.configSets(), topicPlan.configDeletes(),
+                    String.join("; ", topicPlan.rejections()));
+        }
+        LOGGER.info(asterisks);
+    }
+
+    // Topics that are in sync are only counted, their lines are logged at debug level
+    private void logResults(Map<ClusterKey, Map<String, String>> results) {
+        LOGGER.info(asterisks + asterisks);
+        int inSync = 0;
+        int total = 0;
+        for (Map.Entry<ClusterKey, Map<String, String>> clusterResults : results.entrySet()) {
+            for (Map.Entry<String, String> topicResult : clusterResults.getValue().entrySet()) {
+                total++;
+                if (topicResult.getValue().equals(TopicService.IN_SYNC_RESULT)) {
+                    inSync++;
+                    LOGGER.debug("[{}] {} : {}", clusterResults.getKey(), topicResult.getKey(), topicResult.getValue());
+                } else {
+                    LOGGER.info("[{}] {} : {}", clusterResults.getKey(), topicResult.getKey(), topicResult.getValue());
                 }
             }
         }
-        return properties;
+        LOGGER.info("{} topics reconciled, {} of them already in sync", total, inSync);
+        LOGGER.info(asterisks + asterisks);
+    }
+
+    private TopicSpecLoader.LoadResult loadTopicSpecs(BitbucketRepositoryCloner cloner, String commitId, List<String> topicFiles)
+            throws IOException, GitAPIException {
+        if (BitbucketRepositoryCloner.SYNC_MODE_OBJECTS.equalsIgnoreCase(cloner.syncMode())) {
+            // The files are read from the git objects of the exact commit, no working tree is involved
+            try (Repository repository = cloner.fetchIntoBareRepository(commitId)) {
+                return new GitTopicReader(repository, topicSpecLoader).load(commitId, topicFiles);
+            }
+        }
+        cloner.syncRepository(commitId, topicFiles);
+        return topicSpecLoader.loadFiles(appConfig.targetDir(), topicFiles);
+    }
+
+    private static Options options() {
+        Options options = new Options();
+        options.addOption(Option.builder().longOpt(PLAN_OUT).hasArg().argName("file")
+                .desc("write the plan to the file instead of applying it").build());
+        options.addOption(Option.builder().longOpt(APPLY_PLAN).hasArg().argName("file")
+                .desc("apply a plan written by --plan-out").build());
+        options.addOption(Option.builder().longOpt(DAEMON)
+                .desc("keep running and reconcile topics that drifted from the branch head").build());
+        options.addOption(Option.builder().longOpt(FROM).hasArg().argName("commit")
+                .desc("reconcile the topic files changed between this commit and <commit-id>").build());
+        options.addOption(Option.builder().longOpt(STATE_FILE).hasArg().argName("file")
+                .desc("start from the last applied commit stored in the file and store <commit-id> after a successful run").build());
+        options.addOption(Option.builder().longOpt(REPORT).hasArg().argName("file")
+                .desc("write one JSON line per topic result to the file").build());
+        options.addOption(Option.builder().longOpt(JOURNAL).hasArg().argName("file")
+                .desc("record the topics done per commit in the file and skip them when the commit is run again").build());
+        return options;
+    }
+
+    private static CommandLine checkArguments(String[] args) {
+        CommandLine commandLine = null;
+        try {
+            commandLine = new DefaultParser().parse(options(), args);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            System.exit(1);
+        }
+        int required = commandLine.hasOption(APPLY_PLAN) ? 1 : commandLine.hasOption(DAEMON) ? 3 : 4;
+        int modes = (commandLine.hasOption(APPLY_PLAN) ? 1 : 0) + (commandLine.hasOption(PLAN_OUT) ? 1 : 0) + (commandLine.hasOption(DAEMON) ? 1 : 0);
+        if (commandLine.getArgs().length < required || modes > 1) {
+            System.err.println("Insufficient number of arguments provided.");
+            printUsage();
+            System.exit(1);
+        }
+        return commandLine;
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: java -jar your-jar-file.jar [--plan-out <file>] [--from <commit> | --state-file <file>] [--report <file>] [--journal <file>] <config-path> <username> <password> <commit-id>");
+        System.err.println("       java -jar your-jar-file.jar --apply-plan <file> [--report <file>] [--journal <file>] <config-path>");
+        System.err.println("       java -jar your-jar-file.jar --daemon <config-path> <username> <password>");
     }
 
-    private static String generateFilePath(String targetDirectory, String topicFileName) {
-        File file = new File(targetDirectory, topicFileName);
-        return file.getAbsolutePath();
+    // A shutdown hook also covers the runs that end through System.exit and the daemon being stopped
+    private static void writeMetricsSummaryOnExit(String summaryFile) {
+        if (summaryFile == null || summaryFile.isBlank()) {
+            return;
+        }
+        Metrics.Sample sample = Metrics.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            sample.stop("run", Map.of());
+            try {
+                Metrics.writeSummary(Path.of(summaryFile));
+                LOGGER.info("Metrics summary written to {}", summaryFile);
+            } catch (IOException e) {
+                LOGGER.error("Unable to write the metrics summary {}", summaryFile, e);
+            }
+        }, "metrics-summary"));
     }
 
     public static void main(String[] args) {
-        Main main = new Main(new TopicService());
+        CommandLine commandLine = checkArguments(args);
+        // The configuration file is read once and shared by every component of the run
+        AppConfig appConfig = AppConfig.load(commandLine.getArgs()[0]);
+        writeMetricsSummaryOnExit(appConfig.getProperty("metricsSummaryFile"));
+        ReconciliationEngine engine = new ReconciliationEngine(new AdminClientFactory(appConfig), appConfig);
+        Main main = new Main(TopicService.fromConfig(engine, appConfig), appConfig);
         main.run(args);
+        if (commandLine.hasOption(DAEMON)) {
+            return;
+        }
+        if (!main.succeeded()) {
+            LOGGER.error("Application finished with {} failed topics and {} skipped topic files.", main.failedTopics.get(), main.skippedTopicFiles);
+            System.exit(1);
+        }
         LOGGER.info("Application finished successfully.");
     }
 }
@@ -0,0 +1,123 @@
+package com.rajitha.kafka.config;
+
+import com.rajitha.kafka.model.ClusterKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Properties;
+
+// Application configuration resolved once at startup and shared by every component of a run
+public final class AppConfig {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppConfig.class);
+    // Admin client properties applied to every cluster, e.g. admin.request.timeout.ms
+    public static final String ADMIN_PREFIX = "admin.";
+    // Admin client properties of one cluster, e.g. cluster.cluster_1.dev.bootstrap.servers
+    public static final String CLUSTER_PREFIX = "cluster.";
+
+    private final Properties properties;
+    // Directory of the configuration file, relative file paths in it are resolved against it; null when not read from a file
+    private final Path baseDirectory;
+
+    private AppConfig(Properties properties, Path baseDirectory) {
+        this.properties = properties;
+        this.baseDirectory = baseDirectory;
+    }
+
+    public static AppConfig load(String fileName) {
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(fileName)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read configuration file " + fileName, e);
+        }
+        LOGGER.info("Configuration loaded from {}", fileName);
+        return new AppConfig(properties, Path.of(fileName).toAbsolutePath().getParent());
+    }
+
+    public static AppConfig of(Properties properties) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return new AppConfig(copy, null);
+    }
+
+    public String getProperty(String key) {
+        return properties.getProperty(key);
+    }
+
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    // A file named in the configuration, so files shipped next to it are found whatever directory the jar is run from
+    public String getPath(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank() || baseDirectory == null) {
+            return value;
+        }
+        return baseDirectory.resolve(value).toString();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    public String repoPath() {
+        return properties.getProperty("repoPath");
+    }
+
+    public String targetDir() {
+        return properties.getProperty("targetDir");
+    }
+
+    public String branch() {
+        return properties.getProperty("branch");
+    }
+
+    public String bitbucketBaseUrl() {
+        return properties.getProperty("bitbucketBaseUrl", kafkaConstants.BITBUCKET_BASE_URL);
+    }
+
+    public String projectKey() {
+        return properties.getProperty("projectKey", kafkaConstants.PROJECT_KEY);
+    }
+
+    public String repositorySlug() {
+        return properties.getProperty("repositorySlug", kafkaConstants.REPOSITORY_SLUG);
+    }
+
+    // admin.* properties, applied to every cluster
+    public Properties commonAdminProperties() {
+        return withPrefix(ADMIN_PREFIX);
+    }
+
+    // cluster.<name>.<env>.* properties, applied to the given cluster only
+    public Properties clusterAdminProperties(ClusterKey clusterKey) {
+        return withPrefix(CLUSTER_PREFIX + clusterKey.name() + "." + clusterKey.env() + ".");
+    }
+
+    private Properties withPrefix(String prefix) {
+        Properties matching = new Properties();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                matching.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return matching;
+    }
+}
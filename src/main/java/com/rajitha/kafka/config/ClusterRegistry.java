@@ -0,0 +1,115 @@
+package com.rajitha.kafka.config;
+
+import com.rajitha.kafka.model.ClusterKey;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Maps (cluster name, env) to the admin client properties of that cluster, reloaded when the registry file changes
+public class ClusterRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterRegistry.class);
+    public static final long DEFAULT_RELOAD_CHECK_INTERVAL_MS = 10_000;
+
+    private final File registryFile;
+    private final long reloadCheckIntervalNanos;
+    private volatile Map<ClusterKey, Properties> clusters = Collections.emptyMap();
+    private volatile long loadedLastModified = -1;
+    private volatile long loadedLength = -1;
+    private volatile long nextCheckNanos;
+
+    public ClusterRegistry(String registryFile, long reloadCheckIntervalMs) {
+        this.registryFile = registryFile == null ? null : new File(registryFile);
+        this.reloadCheckIntervalNanos = reloadCheckIntervalMs * 1_000_000L;
+        if (this.registryFile != null) {
+            reload();
+        }
+    }
+
+    public static ClusterRegistry fromConfig(AppConfig appConfig) {
+        return new ClusterRegistry(appConfig.getPath("clusterRegistryFile"),
+                appConfig.getLong("clusterRegistryReloadCheckIntervalMs", DEFAULT_RELOAD_CHECK_INTERVAL_MS));
+    }
+
+    // Returns a copy of the cluster's admin client properties, or null for an unknown cluster
+    public Properties lookup(ClusterKey clusterKey) {
+        reloadIfChanged();
+        Properties properties = clusters.get(clusterKey);
+        if (properties == null) {
+            return null;
+        }
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    public int size() {
+        reloadIfChanged();
+        return clusters.size();
+    }
+
+    private void reloadIfChanged() {
+        if (registryFile == null || System.nanoTime() < nextCheckNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (System.nanoTime() < nextCheckNanos) {
+                return;
+            }
+            if (registryFile.lastModified() != loadedLastModified || registryFile.length() != loadedLength) {
+                reload();
+            }
+            nextCheckNanos = System.nanoTime() + reloadCheckIntervalNanos;
+        }
+    }
+
+    private synchronized void reload() {
+        long lastModified = registryFile.lastModified();
+        long length = registryFile.length();
+        try (InputStream inputStream = new FileInputStream(registryFile)) {
+            clusters = parse(new Yaml().load(inputStream));
+            LOGGER.info("Cluster registry loaded {} clusters from {}", clusters.size(), registryFile);
+        } catch (IOException | RuntimeException e) {
+            // Keep serving the previous registry until the file is fixed
+            LOGGER.error("Unable to load cluster registry {}, keeping the previous {} clusters", registryFile, clusters.size(), e);
+        }
+        loadedLastModified = lastModified;
+        loadedLength = length;
+        nextCheckNanos = System.nanoTime() + reloadCheckIntervalNanos;
+    }
+
+    private static Map<ClusterKey, Properties> parse(Map<String, Object> document) {
+        if (document == null || !(document.get("clusters") instanceof List<?> entries)) {
+            throw new IllegalArgumentException("cluster registry must contain a 'clusters' list");
+        }
+        Map<ClusterKey, Properties> parsed = new HashMap<>();
+        for (Object item : entries) {
+            if (!(item instanceof Map<?, ?> entry) || entry.get("name") == null || entry.get("env") == null
+                    || entry.get("bootstrap-servers") == null) {
+                throw new IllegalArgumentException("every cluster needs name, env and bootstrap-servers: " + item);
+            }
+            Properties properties = new Properties();
+            if (entry.get("properties") instanceof Map<?, ?> extra) {
+                for (Map.Entry<?, ?> property : extra.entrySet()) {
+                    properties.put(property.getKey().toString(), String.valueOf(property.getValue()));
+                }
+            }
+            properties.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, entry.get("bootstrap-servers").toString());
+            ClusterKey clusterKey = new ClusterKey(entry.get("name").toString(), entry.get("env").toString());
+            if (parsed.put(clusterKey, properties) != null) {
+                throw new IllegalArgumentException("cluster " + clusterKey + " is declared twice");
+            }
+        }
+        return Collections.unmodifiableMap(parsed);
+    }
+}
@@ -7,6 +7,8 @@ public class kafkaConstants {
     public static final String LATEST = "latest";
     public static final String EARLIEST = "earliest";
     public static final String GROUP_ID = "groupId";
+    public static final String CONSUMER_GROUPS = "consumer-groups";
+    public static final String OFFSET = "offset";
     public static final String TOPICS = "topics";
     public static final String CLEANUP_POLICY_CONFIG = "cleanup.policy";
     public static final String DELETE = "delete";
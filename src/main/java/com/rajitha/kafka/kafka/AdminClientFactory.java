@@ -1,19 +1,176 @@
 package com.rajitha.kafka.kafka;
 
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.model.ClusterKey;
 import com.rajitha.kafka.service.ClusterService;
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeClusterOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class AdminClientFactory {
+// Keeps one long-lived AdminClient per (clusterName, clusterEnv) instead of one per topic
+public class AdminClientFactory implements AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(AdminClientFactory.class);
-    private ClusterService ClusterService = new ClusterService();
-    public AdminClient getAdminClient(String clusterName,String clusterEnv){
-        Properties config = ClusterService.getKafkaAdminConfig(clusterName,clusterEnv);
+    private static final int DEFAULT_MAX_CLIENTS = 16;
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration DEFAULT_HEALTH_CHECK_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ClusterService clusterService;
+    private final Map<ClusterKey, PooledClient> clients = new ConcurrentHashMap<>();
+    private final int maxClients;
+    private final Duration idleTimeout;
+    private final Duration healthCheckInterval;
+    private final ScheduledExecutorService evictor;
+
+    public AdminClientFactory(AppConfig appConfig) {
+        this(new ClusterService(appConfig),
+                appConfig.getInt("adminPoolMaxClients", DEFAULT_MAX_CLIENTS),
+                Duration.ofMillis(appConfig.getLong("adminPoolIdleTimeoutMs", DEFAULT_IDLE_TIMEOUT.toMillis())),
+                Duration.ofMillis(appConfig.getLong("adminPoolHealthCheckIntervalMs", DEFAULT_HEALTH_CHECK_INTERVAL.toMillis())));
+    }
+
+    public AdminClientFactory(ClusterService clusterService, int maxClients, Duration idleTimeout, Duration healthCheckInterval) {
+        this.clusterService = clusterService;
+        this.maxClients = maxClients;
+        this.idleTimeout = idleTimeout;
+        this.healthCheckInterval = healthCheckInterval;
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admin-client-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepMillis = Math.max(1000, idleTimeout.toMillis() / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleClients, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "admin-client-shutdown"));
+    }
+
+    public AdminClient getAdminClient(String clusterName, String clusterEnv) {
+        return getAdminClient(new ClusterKey(clusterName, clusterEnv));
+    }
+
+    // Callers must hand the client back through releaseAdminClient instead of closing it
+    public AdminClient getAdminClient(ClusterKey clusterKey) {
+        PooledClient pooled = clients.get(clusterKey);
+        if (pooled != null && pooled.isIdleLongerThan(healthCheckInterval) && !isHealthy(clusterKey, pooled)) {
+            if (clients.remove(clusterKey, pooled)) {
+                closeQuietly(clusterKey, pooled);
+            }
+        }
+        // The registry may have been reloaded, an idle client with outdated properties is replaced
+        Properties config = clusterService.getKafkaAdminConfig(clusterKey.name(), clusterKey.env());
+        pooled = clients.compute(clusterKey, (key, existing) -> {
+            PooledClient client = existing;
+            if (client != null && client.leases.get() == 0 && !client.config.equals(config)) {
+                LOGGER.info("Admin client properties of {} changed, recreating the client", key);
+                closeQuietly(key, client);
+                client = null;
+            }
+            if (client == null) {
+                client = new PooledClient(createAdminClient(key, config), config);
+            }
+            client.leases.incrementAndGet();
+            client.lastUsedNanos = System.nanoTime();
+            return client;
+        });
+        evictOverflow();
+        return pooled.adminClient;
+    }
+
+    public void releaseAdminClient(ClusterKey clusterKey) {
+        PooledClient pooled = clients.get(clusterKey);
+        if (pooled != null) {
+            pooled.lastUsedNanos = System.nanoTime();
+            pooled.leases.decrementAndGet();
+        }
+    }
+
+    private AdminClient createAdminClient(ClusterKey clusterKey, Properties config) {
         AdminClient adminClient = AdminClient.create(config);
-        LOGGER.info("Successfully created admin client ");
+        LOGGER.info("Successfully created admin client for {}", clusterKey);
         return adminClient;
     }
+
+    private boolean isHealthy(ClusterKey clusterKey, PooledClient pooled) {
+        try {
+            DescribeClusterOptions options = new DescribeClusterOptions().timeoutMs((int) HEALTH_CHECK_TIMEOUT.toMillis());
+            pooled.adminClient.describeCluster(options).clusterId().get(HEALTH_CHECK_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            LOGGER.warn("Health check failed for admin client of {}, it will be recreated: {}", clusterKey, e.getMessage());
+            return false;
+        }
+    }
+
+    // Closes the least recently used clients that are not leased once the pool is over its bound
+    private void evictOverflow() {
+        while (clients.size() > maxClients) {
+            Map.Entry<ClusterKey, PooledClient> eldest = null;
+            for (Map.Entry<ClusterKey, PooledClient> entry : clients.entrySet()) {
+                if (entry.getValue().leases.get() == 0
+                        && (eldest == null || entry.getValue().lastUsedNanos < eldest.getValue().lastUsedNanos)) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null || !clients.remove(eldest.getKey(), eldest.getValue())) {
+                return;
+            }
+            closeQuietly(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    private void evictIdleClients() {
+        for (Map.Entry<ClusterKey, PooledClient> entry : clients.entrySet()) {
+            PooledClient pooled = entry.getValue();
+            if (pooled.leases.get() == 0 && pooled.isIdleLongerThan(idleTimeout) && clients.remove(entry.getKey(), pooled)) {
+                LOGGER.info("Admin client for {} was idle for more than {}, closing it", entry.getKey(), idleTimeout);
+                closeQuietly(entry.getKey(), pooled);
+            }
+        }
+    }
+
+    private void closeQuietly(ClusterKey clusterKey, PooledClient pooled) {
+        try {
+            pooled.adminClient.close(Duration.ofSeconds(30));
+            LOGGER.info("AdminClient for {} closed successfully.", clusterKey);
+        } catch (Exception e) {
+            LOGGER.warn("Error while closing admin client for {}", clusterKey, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        for (ClusterKey clusterKey : clients.keySet()) {
+            PooledClient pooled = clients.remove(clusterKey);
+            if (pooled != null) {
+                closeQuietly(clusterKey, pooled);
+            }
+        }
+    }
+
+    private static final class PooledClient {
+        private final AdminClient adminClient;
+        private final Properties config;
+        private final AtomicInteger leases = new AtomicInteger();
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private PooledClient(AdminClient adminClient, Properties config) {
+            this.adminClient = adminClient;
+            this.config = config;
+        }
+
+        private boolean isIdleLongerThan(Duration duration) {
+            return leases.get() == 0 && System.nanoTime() - lastUsedNanos > duration.toNanos();
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package com.rajitha.kafka.kafka;
+
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.utils.Metrics;
+import org.apache.kafka.common.KafkaFuture;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Caps the number of admin requests that are in flight against one cluster at the same time and times each of them
+public class AdminRequestLimiter {
+    private final ClusterKey clusterKey;
+    private final Semaphore permits;
+
+    public AdminRequestLimiter(ClusterKey clusterKey, int maxInFlightRequests) {
+        this.clusterKey = clusterKey;
+        this.permits = new Semaphore(maxInFlightRequests);
+    }
+
+    // Blocks until a permit is free, issues the request and gives the permit back once all its futures completed
+    public <K, V> Map<K, KafkaFuture<V>> call(String operation, Supplier<Map<K, KafkaFuture<V>>> request) throws InterruptedException {
+        Map<String, String> tags = Metrics.tags("cluster", clusterKey.name(), "env", clusterKey.env(), "operation", operation);
+        Metrics.Sample waiting = Metrics.start();
+        permits.acquire();
+        waiting.stop("admin_permit_wait", tags);
+        Metrics.Sample sample = Metrics.start();
+        Map<K, KafkaFuture<V>> futures;
+        try {
+            futures = request.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            Metrics.increment("admin_request_errors", tags);
+            throw e;
+        }
+        Metrics.increment("admin_requests", tags);
+        Metrics.increment("admin_request_items", tags, futures.size());
+        KafkaFuture.allOf(futures.values().toArray(new KafkaFuture<?>[0])).whenComplete((ignored, error) -> {
+            permits.release();
+            sample.stop("admin_request", tags);
+            long failed = futures.values().stream().filter(KafkaFuture::isCompletedExceptionally).count();
+            if (failed > 0) {
+                Metrics.increment("admin_request_item_errors", tags, failed);
+            }
+        });
+        return futures;
+    }
+
+    // Same as call for admin requests that return a single future, such as listTopics
+    public <V> KafkaFuture<V> callSingle(String operation, Supplier<KafkaFuture<V>> request) throws InterruptedException {
+        return call(operation, () -> Collections.singletonMap("", request.get())).get("");
+    }
+}
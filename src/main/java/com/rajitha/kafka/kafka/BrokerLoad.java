@@ -0,0 +1,176 @@
+package com.rajitha.kafka.kafka;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.clients.admin.ReplicaInfo;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+// In-memory model of the replicas and disk usage of every broker, built from one bulk pass of cluster metadata.
+// Planned changes reserve their projected replicas in it, so the changes of all batches of a run add up
+public class BrokerLoad {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrokerLoad.class);
+    private final Map<Integer, Integer> replicas = new HashMap<>();
+    private final Map<Integer, Long> usedBytes = new HashMap<>();
+    // Only known for brokers whose log dirs report their volume size
+    private final Map<Integer, Long> capacityBytes = new HashMap<>();
+    private final Map<TopicPartition, List<Integer>> assignments = new HashMap<>();
+    private final Map<TopicPartition, Long> partitionBytes = new HashMap<>();
+
+    // The limits a reservation must stay within; 0 disables a limit
+    public record Limits(int maxReplicasPerBroker, int maxDiskUsagePercent) {
+    }
+
+    public static BrokerLoad load(AdminClient adminClient, AdminRequestLimiter limiter, Collection<Node> brokers, Collection<String> topicNames)
+            throws InterruptedException, ExecutionException {
+        BrokerLoad brokerLoad = new BrokerLoad();
+        List<Integer> brokerIds = new ArrayList<>();
+        for (Node broker : brokers) {
+            brokerIds.add(broker.id());
+            brokerLoad.replicas.put(broker.id(), 0);
+            brokerLoad.usedBytes.put(broker.id(), 0L);
+        }
+
+        // Both requests go out together, every topic and every log dir of the cluster in one request each
+        Map<String, KafkaFuture<TopicDescription>> describeFutures = topicNames.isEmpty() ? Map.of()
+                : limiter.call("describeTopics", () -> adminClient.describeTopics(topicNames).topicNameValues());
+        Map<Integer, KafkaFuture<Map<String, LogDirDescription>>> logDirFutures;
+        try {
+            logDirFutures = limiter.call("describeLogDirs", () -> adminClient.describeLogDirs(brokerIds).descriptions());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Log dirs could not be described, disk usage is not checked: {}", e.getMessage());
+            logDirFutures = Map.of();
+        }
+
+        for (Map.Entry<String, KafkaFuture<TopicDescription>> entry : describeFutures.entrySet()) {
+            try {
+                for (TopicPartitionInfo partition : entry.getValue().get().partitions()) {
+                    List<Integer> partitionReplicas = partition.replicas().stream().map(Node::id).toList();
+                    brokerLoad.assignments.put(new TopicPartition(entry.getKey(), partition.partition()), partitionReplicas);
+                    partitionReplicas.forEach(id -> brokerLoad.replicas.computeIfPresent(id, (key, count) -> count + 1));
+                }
+            } catch (ExecutionException e) {
+                // Deleted since the listing, its replicas are gone as well
+                LOGGER.debug("Topic {} could not be described for the broker load: {}", entry.getKey(), e.getCause().getMessage());
+            }
+        }
+        for (Map.Entry<Integer, KafkaFuture<Map<String, LogDirDescription>>> entry : logDirFutures.entrySet()) {
+            long used = 0;
+            long capacity = 0;
+            boolean capacityKnown = true;
+            Map<String, LogDirDescription> logDirs;
+            try {
+                logDirs = entry.getValue().get();
+            } catch (ExecutionException e) {
+                // E.g. not authorized to describe the cluster; the partition limit is still checked for this broker
+                LOGGER.warn("Log dirs of broker {} could not be described, its disk usage is not checked: {}", entry.getKey(), e.getCause().getMessage());
+                continue;
+            }
+            for (LogDirDescription logDir : logDirs.values()) {
+                long replicaBytes = 0;
+                for (Map.Entry<TopicPartition, ReplicaInfo> replica : logDir.replicaInfos().entrySet()) {
+                    replicaBytes += replica.getValue().size();
+                    brokerLoad.partitionBytes.merge(replica.getKey(), replica.getValue().size(), Math::max);
+                }
+                // The volume usage also counts what is not a replica, e.g. other files on the same disk
+                if (logDir.totalBytes().isPresent() && logDir.usableBytes().isPresent()) {
+                    used += logDir.totalBytes().getAsLong() - logDir.usableBytes().getAsLong();
+                    capacity += logDir.totalBytes().getAsLong();
+                } else {
+                    used += replicaBytes;
+                    capacityKnown = false;
+                }
+            }
+            brokerLoad.usedBytes.put(entry.getKey(), used);
+            if (capacityKnown && capacity > 0) {
+                brokerLoad.capacityBytes.put(entry.getKey(), capacity);
+            }
+        }
+        LOGGER.info("Broker load built from {} topics on {} brokers, {} of them with log dirs", describeFutures.size(), brokerIds.size(), logDirFutures.size());
+        return brokerLoad;
+    }
+
+    public synchronized int replicas(int brokerId) {
+        return replicas.getOrDefault(brokerId, 0);
+    }
+
+    public synchronized long usedBytes(int brokerId) {
+        return usedBytes.getOrDefault(brokerId, 0L);
+    }
+
+    public synchronized long partitionBytes(TopicPartition topicPartition) {
+        return partitionBytes.getOrDefault(topicPartition, 0L);
+    }
+
+    // Record a replica placed on or removed from a broker by a reassignment, so that later placements of the run see it
+    public synchronized void addReplica(TopicPartition topicPartition, int brokerId) {
+        replicas.computeIfPresent(brokerId, (id, count) -> count + 1);
+        usedBytes.computeIfPresent(brokerId, (id, used) -> used + partitionBytes(topicPartition));
+    }
+
+    public synchronized void removeReplica(TopicPartition topicPartition, int brokerId) {
+        replicas.computeIfPresent(brokerId, (id, count) -> count - 1);
+        usedBytes.computeIfPresent(brokerId, (id, used) -> used - partitionBytes(topicPartition));
+    }
+
+    // Projects new partitions and added replicas of existing partitions onto the least loaded brokers, the way the
+    // controller spreads them; the projection is kept only when no broker goes over a limit, otherwise the reason is returned
+    public synchronized String reserve(String topicName, int currentPartitions, int newPartitions, int currentReplicationFactor,
+                                       int replicationFactor, long bytesPerNewReplica, Limits limits) {
+        Map<Integer, Integer> addedReplicas = new HashMap<>();
+        Map<Integer, Long> addedBytes = new HashMap<>();
+        if (replicationFactor > currentReplicationFactor) {
+            for (int partition = 0; partition < currentPartitions; partition++) {
+                TopicPartition topicPartition = new TopicPartition(topicName, partition);
+                List<Integer> existing = assignments.getOrDefault(topicPartition, List.of());
+                for (int broker : leastLoaded(replicationFactor - existing.size(), existing, addedReplicas, addedBytes)) {
+                    addedReplicas.merge(broker, 1, Integer::sum);
+                    addedBytes.merge(broker, partitionBytes(topicPartition), Long::sum);
+                }
+            }
+        }
+        for (int partition = currentPartitions; partition < newPartitions; partition++) {
+            for (int broker : leastLoaded(replicationFactor, List.of(), addedReplicas, addedBytes)) {
+                addedReplicas.merge(broker, 1, Integer::sum);
+                addedBytes.merge(broker, bytesPerNewReplica, Long::sum);
+            }
+        }
+
+        for (Map.Entry<Integer, Integer> entry : addedReplicas.entrySet()) {
+            int broker = entry.getKey();
+            int projectedReplicas = replicas.get(broker) + entry.getValue();
+            if (limits.maxReplicasPerBroker() > 0 && projectedReplicas > limits.maxReplicasPerBroker()) {
+                return "broker " + broker + " would hold " + projectedReplicas + " partition replicas, the limit is " + limits.maxReplicasPerBroker();
+            }
+            Long capacity = capacityBytes.get(broker);
+            if (limits.maxDiskUsagePercent() > 0 && capacity != null) {
+                long projectedPercent = (usedBytes.get(broker) + addedBytes.getOrDefault(broker, 0L)) * 100 / capacity;
+                if (projectedPercent > limits.maxDiskUsagePercent()) {
+                    return "broker " + broker + " would use " + projectedPercent + "% of its disk, the limit is " + limits.maxDiskUsagePercent() + "%";
+                }
+            }
+        }
+        addedReplicas.forEach((broker, count) -> replicas.merge(broker, count, Integer::sum));
+        addedBytes.forEach((broker, bytes) -> usedBytes.merge(broker, bytes, Long::sum));
+        return null;
+    }
+
+    private List<Integer> leastLoaded(int count, List<Integer> excluded, Map<Integer, Integer> addedReplicas, Map<Integer, Long> addedBytes) {
+        if (count <= 0) {
+            return List.of();
+        }
+        Comparator<Integer> order = Comparator
+                .<Integer>comparingInt(id -> replicas.get(id) + addedReplicas.getOrDefault(id, 0))
+                .thenComparingLong(id -> usedBytes.get(id) + addedBytes.getOrDefault(id, 0L))
+                .thenComparingInt(id -> id);
+        return replicas.keySet().stream().filter(id -> !excluded.contains(id)).sorted(order).limit(count).toList();
+    }
+}
@@ -0,0 +1,8 @@
+package com.rajitha.kafka.kafka;
+
+import com.rajitha.kafka.model.ClusterKey;
+import org.apache.kafka.clients.admin.AdminClient;
+
+// Everything a reconciliation batch needs to talk to one cluster during a run
+public record ClusterContext(ClusterKey clusterKey, AdminClient adminClient, AdminRequestLimiter limiter, ClusterSnapshot snapshot) {
+}
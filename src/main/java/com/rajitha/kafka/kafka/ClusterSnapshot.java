@@ -0,0 +1,185 @@
+package com.rajitha.kafka.kafka;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.DescribeConfigsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// View of a cluster for one phase of a run (planning, deletion planning or applying): topic names are listed once and every
+// topic is described and its configs fetched at most once. Each phase takes a fresh view, so applying a plan sees the cluster
+// as it is then and not the broker load the planning phase reserved
+public class ClusterSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterSnapshot.class);
+    private final AdminClient adminClient;
+    private final AdminRequestLimiter limiter;
+    private volatile Set<String> topicNames;
+    private volatile Collection<Node> brokers;
+    private volatile BrokerLoad brokerLoad;
+    private final Map<String, TopicDescription> descriptions = new ConcurrentHashMap<>();
+    private final Map<String, Config> configs = new ConcurrentHashMap<>();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+    public ClusterSnapshot(AdminClient adminClient, AdminRequestLimiter limiter) {
+        this.adminClient = adminClient;
+        this.limiter = limiter;
+    }
+
+    // Describes and fetches the configs of the given topics that exist and are not cached yet, in one request each
+    public void load(Collection<String> topics) throws InterruptedException, ExecutionException {
+        Set<String> names = topicNames();
+        List<String> toDescribe = new ArrayList<>();
+        for (String topicName : topics) {
+            if (names.contains(topicName) && !descriptions.containsKey(topicName)) {
+                toDescribe.add(topicName);
+            }
+        }
+        if (toDescribe.isEmpty()) {
+            return;
+        }
+
+        List<ConfigResource> resources = new ArrayList<>();
+        for (String topicName : toDescribe) {
+            resources.add(new ConfigResource(ConfigResource.Type.TOPIC, topicName));
+        }
+        // Both requests only need the topic names, so they are sent together; synonyms tell what an override falls back to
+        DescribeConfigsOptions configsOptions = new DescribeConfigsOptions().includeSynonyms(true);
+        Map<String, KafkaFuture<TopicDescription>> describeFutures = limiter.call("describeTopics", () -> adminClient.describeTopics(toDescribe).topicNameValues());
+        Map<ConfigResource, KafkaFuture<Config>> configFutures = limiter.call("describeConfigs", () -> adminClient.describeConfigs(resources, configsOptions).values());
+
+        for (String topicName : toDescribe) {
+            try {
+                descriptions.put(topicName, describeFutures.get(topicName).get());
+                configs.put(topicName, configFutures.get(new ConfigResource(ConfigResource.Type.TOPIC, topicName)).get());
+                failures.remove(topicName);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UnknownTopicOrPartitionException) {
+                    // Deleted after the listing was taken
+                    names.remove(topicName);
+                } else {
+                    LOGGER.error("Error occurred while describing topic '{}'.", topicName, e.getCause());
+                    failures.put(topicName, e.getCause());
+                }
+            }
+        }
+    }
+
+    public boolean exists(String topicName) throws InterruptedException, ExecutionException {
+        return topicNames().contains(topicName);
+    }
+
+    public Set<String> topicNames() throws InterruptedException, ExecutionException {
+        Set<String> names = topicNames;
+        if (names == null) {
+            synchronized (this) {
+                names = topicNames;
+                if (names == null) {
+                    names = ConcurrentHashMap.newKeySet();
+                    names.addAll(limiter.callSingle("listTopics", () -> adminClient.listTopics().names()).get());
+                    LOGGER.info("Cluster snapshot listed {} topics", names.size());
+                    topicNames = names;
+                }
+            }
+        }
+        return names;
+    }
+
+    // The brokers with their racks, fetched once per view
+    public Collection<Node> brokers() throws InterruptedException, ExecutionException {
+        Collection<Node> nodes = brokers;
+        if (nodes == null) {
+            synchronized (this) {
+                nodes = brokers;
+                if (nodes == null) {
+                    nodes = List.copyOf(limiter.callSingle("describeCluster", () -> adminClient.describeCluster().nodes()).get());
+                    brokers = nodes;
+                }
+            }
+        }
+        return nodes;
+    }
+
+    // Replica counts and disk usage of every broker, built once per view from the whole cluster and updated with the planned changes
+    public BrokerLoad brokerLoad() throws InterruptedException, ExecutionException {
+        BrokerLoad load = brokerLoad;
+        if (load == null) {
+            synchronized (this) {
+                load = brokerLoad;
+                if (load == null) {
+                    load = BrokerLoad.load(adminClient, limiter, brokers(), List.copyOf(topicNames()));
+                    brokerLoad = load;
+                }
+            }
+        }
+        return load;
+    }
+
+    // Descriptions of every topic described through this view, the replica load they put on the brokers is known from them
+    public Collection<TopicDescription> descriptions() {
+        return descriptions.values();
+    }
+
+    public Throwable failure(String topicName) {
+        return failures.get(topicName);
+    }
+
+    public TopicDescription description(String topicName) {
+        return descriptions.get(topicName);
+    }
+
+    public int partitionCount(String topicName) {
+        return descriptions.get(topicName).partitions().size();
+    }
+
+    public int replicationFactor(String topicName) {
+        return descriptions.get(topicName).partitions().get(0).replicas().size();
+    }
+
+    public Config config(String topicName) {
+        return configs.get(topicName);
+    }
+
+    public Map<String, String> configValues(String topicName) {
+        Map<String, String> values = new HashMap<>();
+        for (ConfigEntry entry : configs.get(topicName).entries()) {
+            values.put(entry.name(), entry.value());
+        }
+        return values;
+    }
+
+    // Called for topics that were changed so the next load fetches their new state
+    public void invalidate(Collection<String> changedTopics) {
+        for (String topicName : changedTopics) {
+            descriptions.remove(topicName);
+            configs.remove(topicName);
+            failures.remove(topicName);
+        }
+    }
+
+    // Changes made through this view only update the topic names when they were listed already, they never send a request
+    public void topicCreated(String topicName) {
+        Set<String> names = topicNames;
+        if (names != null) {
+            names.add(topicName);
+        }
+        invalidate(Collections.singleton(topicName));
+    }
+
+    public void topicDeleted(String topicName) {
+        Set<String> names = topicNames;
+        if (names != null) {
+            names.remove(topicName);
+        }
+        invalidate(Collections.singleton(topicName));
+    }
+}
@@ -0,0 +1,10 @@
+package com.rajitha.kafka.model;
+
+// Identifies a target cluster as declared in the topic yaml (target-cluster.name / target-cluster.env)
+public record ClusterKey(String name, String env) {
+
+    @Override
+    public String toString() {
+        return name + "/" + env;
+    }
+}
@@ -0,0 +1,61 @@
+package com.rajitha.kafka.model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// The full change set of a run, which can be written on CI and applied later
+public record ReconciliationPlan(String commitId, Instant createdAt, List<TopicPlan> topics) {
+
+    public ReconciliationPlan {
+        topics = List.copyOf(topics);
+    }
+
+    public long changeCount() {
+        return topics.stream().filter(TopicPlan::hasChanges).count();
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("commitId", commitId == null ? JSONObject.NULL : commitId);
+        json.put("createdAt", createdAt.toString());
+        JSONArray topicsJson = new JSONArray();
+        for (TopicPlan topic : topics) {
+            topicsJson.put(topic.toJson());
+        }
+        json.put("topics", topicsJson);
+        return json;
+    }
+
+    public static ReconciliationPlan fromJson(JSONObject json) {
+        List<TopicPlan> topics = new ArrayList<>();
+        JSONArray topicsJson = json.getJSONArray("topics");
+        for (int i = 0; i < topicsJson.length(); i++) {
+            topics.add(TopicPlan.fromJson(topicsJson.getJSONObject(i)));
+        }
+        return new ReconciliationPlan(json.isNull("commitId") ? null : json.getString("commitId"),
+                Instant.parse(json.getString("createdAt")), topics);
+    }
+
+    public void write(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            toJson().write(writer, 2, 0);
+        }
+    }
+
+    public static ReconciliationPlan read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return fromJson(new JSONObject(new JSONTokener(reader)));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.rajitha.kafka.model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Planned change of one topic on one cluster, computed from the cluster snapshot before anything is applied.
+// consumerGroups are the groups declared for the topic with their initial offset, positioned while they have no committed offset
+public record TopicPlan(ClusterKey cluster, String topicName, Action action, int partitions, int replicationFactor,
+                        int currentPartitions, int currentReplicationFactor, Map<String, String> configSets, List<String> configDeletes,
+                        List<String> rejections, Map<String, String> consumerGroups) {
+
+    public enum Action {
+        CREATE, UPDATE, DELETE, NONE, FAILED
+    }
+
+    public TopicPlan {
+        configSets = Collections.unmodifiableMap(new LinkedHashMap<>(configSets));
+        configDeletes = List.copyOf(configDeletes);
+        rejections = List.copyOf(rejections);
+        consumerGroups = Collections.unmodifiableMap(new LinkedHashMap<>(consumerGroups));
+    }
+
+    public TopicPlan(ClusterKey cluster, String topicName, Action action, int partitions, int replicationFactor, int currentPartitions,
+                     int currentReplicationFactor, Map<String, String> configSets, List<String> configDeletes, List<String> rejections) {
+        this(cluster, topicName, action, partitions, replicationFactor, currentPartitions, currentReplicationFactor, configSets, configDeletes,
+                rejections, Map.of());
+    }
+
+    public static TopicPlan failed(ClusterKey cluster, String topicName, String message) {
+        return new TopicPlan(cluster, topicName, Action.FAILED, 0, 0, 0, 0, Map.of(), List.of(), List.of(message));
+    }
+
+    public boolean increasesPartitions() {
+        return action == Action.UPDATE && partitions > currentPartitions;
+    }
+
+    // Topics that exist keep their replicas, the missing or surplus replicas are moved by a partition reassignment
+    public boolean changesReplicationFactor() {
+        return action == Action.UPDATE && currentReplicationFactor > 0 && replicationFactor != currentReplicationFactor;
+    }
+
+    public boolean hasChanges() {
+        return action == Action.CREATE || action == Action.UPDATE || action == Action.DELETE;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("cluster", cluster.name());
+        json.put("env", cluster.env());
+        json.put("topic", topicName);
+        json.put("action", action.name());
+        json.put("partitions", partitions);
+        json.put("replicationFactor", replicationFactor);
+        json.put("currentPartitions", currentPartitions);
+        json.put("currentReplicationFactor", currentReplicationFactor);
+        json.put("configSets", new JSONObject(configSets));
+        json.put("configDeletes", new JSONArray(configDeletes));
+        json.put("rejections", new JSONArray(rejections));
+        if (!consumerGroups.isEmpty()) {
+            JSONArray groupsJson = new JSONArray();
+            consumerGroups.forEach((groupId, offset) -> groupsJson.put(new JSONObject().put("groupId", groupId).put("offset", offset)));
+            json.put("consumerGroups", groupsJson);
+        }
+        return json;
+    }
+
+    public static TopicPlan fromJson(JSONObject json) {
+        Map<String, String> configSets = new LinkedHashMap<>();
+        JSONObject configJson = json.getJSONObject("configSets");
+        for (String key : configJson.keySet()) {
+            configSets.put(key, configJson.getString(key));
+        }
+        List<String> rejections = strings(json.getJSONArray("rejections"));
+        // Plans written before config deletes or replication factor changes existed have no such fields
+        JSONArray deletesJson = json.optJSONArray("configDeletes");
+        List<String> configDeletes = deletesJson == null ? List.of() : strings(deletesJson);
+        // An array keeps the order of the groups, which JSON objects do not
+        Map<String, String> consumerGroups = new LinkedHashMap<>();
+        JSONArray groupsJson = json.optJSONArray("consumerGroups");
+        for (int i = 0; groupsJson != null && i < groupsJson.length(); i++) {
+            consumerGroups.put(groupsJson.getJSONObject(i).getString("groupId"), groupsJson.getJSONObject(i).getString("offset"));
+        }
+        return new TopicPlan(new ClusterKey(json.getString("cluster"), json.getString("env")), json.getString("topic"),
+                Action.valueOf(json.getString("action")), json.getInt("partitions"), json.getInt("replicationFactor"),
+                json.getInt("currentPartitions"), json.optInt("currentReplicationFactor", json.getInt("replicationFactor")),
+                configSets, configDeletes, rejections, consumerGroups);
+    }
+
+    private static List<String> strings(JSONArray array) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            values.add(array.getString(i));
+        }
+        return values;
+    }
+}
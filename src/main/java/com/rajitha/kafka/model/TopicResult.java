@@ -0,0 +1,62 @@
+package com.rajitha.kafka.model;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+// Outcome of applying the plan of one topic, written as one compact line of the result report
+public record TopicResult(TopicPlan plan, Status status, long durationMs, String message, List<String> errors) {
+
+    public enum Status {
+        APPLIED, IN_SYNC, REJECTED, FAILED
+    }
+
+    public TopicResult {
+        errors = List.copyOf(errors);
+    }
+
+    public static Status status(TopicPlan plan, List<String> errors) {
+        if (!errors.isEmpty() || plan.action() == TopicPlan.Action.FAILED) {
+            return Status.FAILED;
+        }
+        if (!plan.rejections().isEmpty()) {
+            return Status.REJECTED;
+        }
+        return plan.hasChanges() ? Status.APPLIED : Status.IN_SYNC;
+    }
+
+    // Only the parts of the diff that apply to the action are written, so in-sync topics stay a few bytes long
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("cluster", plan.cluster().name());
+        json.put("env", plan.cluster().env());
+        json.put("topic", plan.topicName());
+        json.put("action", plan.action().name());
+        json.put("status", status.name());
+        json.put("durationMs", durationMs);
+        if (plan.action() == TopicPlan.Action.CREATE) {
+            json.put("partitions", plan.partitions());
+            json.put("replicationFactor", plan.replicationFactor());
+        } else if (plan.increasesPartitions()) {
+            json.put("partitions", new JSONObject().put("from", plan.currentPartitions()).put("to", plan.partitions()));
+        }
+        if (plan.changesReplicationFactor()) {
+            json.put("replicationFactor", new JSONObject().put("from", plan.currentReplicationFactor()).put("to", plan.replicationFactor()));
+        }
+        if (!plan.configSets().isEmpty()) {
+            json.put("configSets", new JSONObject(plan.configSets()));
+        }
+        if (!plan.configDeletes().isEmpty()) {
+            json.put("configDeletes", new JSONArray(plan.configDeletes()));
+        }
+        if (!plan.rejections().isEmpty()) {
+            json.put("rejections", new JSONArray(plan.rejections()));
+        }
+        if (!errors.isEmpty()) {
+            json.put("error", String.join("; ", errors));
+        }
+        json.put("message", message);
+        return json;
+    }
+}
@@ -0,0 +1,113 @@
+package com.rajitha.kafka.model;
+
+import com.rajitha.kafka.config.kafkaConstants;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Typed, immutable form of one topic yaml document; config values are already converted to strings.
+// consumerGroups maps each consumer group declared for the topic to its initial position, earliest or latest
+public record TopicSpec(String topicName, ClusterKey cluster, int partitions, int replicationFactor,
+                        Map<String, String> config, String sourceFile, Map<String, String> consumerGroups) {
+
+    public TopicSpec {
+        config = Collections.unmodifiableMap(new LinkedHashMap<>(config));
+        consumerGroups = Collections.unmodifiableMap(new LinkedHashMap<>(consumerGroups));
+    }
+
+    public TopicSpec(String topicName, ClusterKey cluster, int partitions, int replicationFactor, Map<String, String> config, String sourceFile) {
+        this(topicName, cluster, partitions, replicationFactor, config, sourceFile, Map.of());
+    }
+
+    public static TopicSpec fromYaml(Map<?, ?> document, String sourceFile) {
+        if (document == null) {
+            throw new IllegalArgumentException("document is empty");
+        }
+        String topicName = requireString(document, "topicName");
+        Map<?, ?> spec = requireMap(document, "spec");
+        Map<?, ?> targetCluster = requireMap(spec, "target-cluster");
+        ClusterKey cluster = new ClusterKey(requireString(targetCluster, "name"), requireString(targetCluster, "env"));
+        int partitions = requirePositiveInt(spec, "partitions");
+        int replicationFactor = requirePositiveInt(spec, "replication-factor");
+
+        Map<String, String> config = new LinkedHashMap<>();
+        Object configSection = spec.get("config");
+        if (configSection != null) {
+            if (!(configSection instanceof Map<?, ?> configMap)) {
+                throw new IllegalArgumentException("'config' must be a mapping");
+            }
+            for (Map.Entry<?, ?> entry : configMap.entrySet()) {
+                if (entry.getValue() == null) {
+                    throw new IllegalArgumentException("config '" + entry.getKey() + "' has no value");
+                }
+                config.put(entry.getKey().toString(), configValue(entry.getValue()));
+            }
+        }
+        return new TopicSpec(topicName, cluster, partitions, replicationFactor, config, sourceFile, consumerGroups(spec));
+    }
+
+    // A list config may be written as a yaml sequence; Kafka takes and describes lists as comma separated values
+    private static String configValue(Object value) {
+        if (value instanceof List<?> items) {
+            StringJoiner joiner = new StringJoiner(",");
+            items.forEach(item -> joiner.add(String.valueOf(item)));
+            return joiner.toString();
+        }
+        return value.toString();
+    }
+
+    // consumer-groups is a list of mappings like {groupId: orders-service, offset: earliest}
+    private static Map<String, String> consumerGroups(Map<?, ?> spec) {
+        Map<String, String> consumerGroups = new LinkedHashMap<>();
+        Object section = spec.get(kafkaConstants.CONSUMER_GROUPS);
+        if (section == null) {
+            return consumerGroups;
+        }
+        if (!(section instanceof List<?> groups)) {
+            throw new IllegalArgumentException("'" + kafkaConstants.CONSUMER_GROUPS + "' must be a list");
+        }
+        for (Object group : groups) {
+            if (!(group instanceof Map<?, ?> groupMap)) {
+                throw new IllegalArgumentException("every entry of '" + kafkaConstants.CONSUMER_GROUPS + "' must be a mapping");
+            }
+            String groupId = requireString(groupMap, kafkaConstants.GROUP_ID);
+            String offset = requireString(groupMap, kafkaConstants.OFFSET).toLowerCase(Locale.ROOT);
+            if (!offset.equals(kafkaConstants.EARLIEST) && !offset.equals(kafkaConstants.LATEST)) {
+                throw new IllegalArgumentException("offset of consumer group '" + groupId + "' must be '" + kafkaConstants.EARLIEST
+                        + "' or '" + kafkaConstants.LATEST + "'");
+            }
+            if (consumerGroups.put(groupId, offset) != null) {
+                throw new IllegalArgumentException("consumer group '" + groupId + "' is declared twice");
+            }
+        }
+        return consumerGroups;
+    }
+
+    private static String requireString(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (!(value instanceof String text) || text.isBlank()) {
+            throw new IllegalArgumentException("'" + key + "' is missing or not a string");
+        }
+        return text;
+    }
+
+    private static Map<?, ?> requireMap(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (!(value instanceof Map<?, ?> mapping)) {
+            throw new IllegalArgumentException("'" + key + "' is missing or not a mapping");
+        }
+        return mapping;
+    }
+
+    private static int requirePositiveInt(Map<?, ?> map, String key) {
+        Object value = map.get(key);
+        if (!(value instanceof Integer number) || number <= 0) {
+            throw new IllegalArgumentException("'" + key + "' is missing or not a positive integer");
+        }
+        return number;
+    }
+}
@@ -0,0 +1,100 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.BrokerLoad;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.kafka.ClusterSnapshot;
+import com.rajitha.kafka.model.TopicPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+// Rejects planned creates, partition increases and replication factor increases that would take a broker over its
+// partition or disk limit, before anything is sent to the cluster
+public class CapacityPreflight {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapacityPreflight.class);
+    private static final String RETENTION_BYTES = "retention.bytes";
+
+    private final BrokerLoad.Limits limits;
+    private final long estimatedPartitionBytes;
+
+    public CapacityPreflight() {
+        this(0, 0, 0);
+    }
+
+    public CapacityPreflight(AppConfig appConfig) {
+        this(appConfig.getInt("maxPartitionsPerBroker", 0), appConfig.getInt("maxBrokerDiskUsagePercent", 0),
+                appConfig.getLong("estimatedPartitionBytes", 0));
+    }
+
+    // A limit of 0 disables it; new replicas are counted with the retention.bytes of the topic, or the estimate without one
+    public CapacityPreflight(int maxPartitionsPerBroker, int maxBrokerDiskUsagePercent, long estimatedPartitionBytes) {
+        if (maxPartitionsPerBroker < 0 || maxBrokerDiskUsagePercent < 0 || maxBrokerDiskUsagePercent > 100 || estimatedPartitionBytes < 0) {
+            throw new IllegalArgumentException("broker limits must be positive, or 0 to disable them, and the disk usage at most 100%");
+        }
+        this.limits = new BrokerLoad.Limits(maxPartitionsPerBroker, maxBrokerDiskUsagePercent);
+        this.estimatedPartitionBytes = estimatedPartitionBytes;
+    }
+
+    public boolean isEnabled() {
+        return limits.maxReplicasPerBroker() > 0 || limits.maxDiskUsagePercent() > 0;
+    }
+
+    // Plans are checked in order and each one that fits is reserved in the broker load, so later topics and batches see it
+    public Map<String, TopicPlan> check(ClusterContext context, Map<String, TopicPlan> plans) throws InterruptedException, ExecutionException {
+        if (!isEnabled() || plans.values().stream().noneMatch(CapacityPreflight::addsReplicas)) {
+            return plans;
+        }
+        ClusterSnapshot snapshot = context.snapshot();
+        BrokerLoad brokerLoad = snapshot.brokerLoad();
+        Map<String, TopicPlan> checked = new LinkedHashMap<>();
+        for (Map.Entry<String, TopicPlan> entry : plans.entrySet()) {
+            TopicPlan plan = entry.getValue();
+            if (!addsReplicas(plan)) {
+                checked.put(entry.getKey(), plan);
+                continue;
+            }
+            String violation = brokerLoad.reserve(plan.topicName(), plan.currentPartitions(), plan.partitions(),
+                    plan.currentReplicationFactor(), plan.replicationFactor(), bytesPerReplica(snapshot, plan), limits);
+            checked.put(entry.getKey(), violation == null ? plan : rejected(plan, violation));
+        }
+        return checked;
+    }
+
+    private static boolean addsReplicas(TopicPlan plan) {
+        return plan.action() == TopicPlan.Action.CREATE || plan.increasesPartitions()
+                || (plan.changesReplicationFactor() && plan.replicationFactor() > plan.currentReplicationFactor());
+    }
+
+    private long bytesPerReplica(ClusterSnapshot snapshot, TopicPlan plan) {
+        String retentionBytes = plan.configSets().get(RETENTION_BYTES);
+        if (retentionBytes == null && plan.action() == TopicPlan.Action.UPDATE && snapshot.config(plan.topicName()) != null) {
+            retentionBytes = snapshot.configValues(plan.topicName()).get(RETENTION_BYTES);
+        }
+        try {
+            long bytes = retentionBytes == null ? -1 : Long.parseLong(retentionBytes);
+            return bytes > 0 ? bytes : estimatedPartitionBytes;
+        } catch (NumberFormatException e) {
+            return estimatedPartitionBytes;
+        }
+    }
+
+    // A rejected create is not sent at all; a rejected update still gets its config changes, only the new replicas are dropped
+    private static TopicPlan rejected(TopicPlan plan, String violation) {
+        LOGGER.warn("Topic {} on {} is rejected by the capacity preflight: {}", plan.topicName(), plan.cluster(), violation);
+        List<String> rejections = new ArrayList<>(plan.rejections());
+        if (plan.action() == TopicPlan.Action.CREATE) {
+            rejections.add("Topic cannot be created, " + violation);
+            return new TopicPlan(plan.cluster(), plan.topicName(), TopicPlan.Action.NONE, plan.partitions(), plan.replicationFactor(),
+                    0, 0, Map.of(), List.of(), rejections);
+        }
+        rejections.add("Partitions and replicas cannot be added, " + violation);
+        int replicationFactor = plan.replicationFactor() > plan.currentReplicationFactor() ? plan.currentReplicationFactor() : plan.replicationFactor();
+        boolean remainingChanges = replicationFactor != plan.currentReplicationFactor() || !plan.configSets().isEmpty() || !plan.configDeletes().isEmpty();
+        return new TopicPlan(plan.cluster(), plan.topicName(), remainingChanges ? TopicPlan.Action.UPDATE : TopicPlan.Action.NONE,
+                plan.currentPartitions(), replicationFactor, plan.currentPartitions(), plan.currentReplicationFactor(),
+                plan.configSets(), plan.configDeletes(), rejections, plan.consumerGroups());
+    }
+}
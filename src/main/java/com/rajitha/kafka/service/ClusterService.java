@@ -1,6 +1,8 @@
 package com.rajitha.kafka.service;
 
-import com.rajitha.kafka.config.kafkaConstants;
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.config.ClusterRegistry;
+import com.rajitha.kafka.model.ClusterKey;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,26 +11,36 @@ import java.util.Properties;
 
 public class ClusterService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClusterService.class);
+    private final AppConfig appConfig;
+    private final ClusterRegistry clusterRegistry;
 
-    public Properties getKafkaAdminConfig(String clusterName,String clusterEnv) {
-        Properties config = new Properties();
+    public ClusterService(AppConfig appConfig) {
+        this(appConfig, ClusterRegistry.fromConfig(appConfig));
+    }
 
-        // Add cluster-specific configuration based on clusterName and environment
-        if (clusterName.equals(kafkaConstants.CLUSTER_1) && clusterEnv.equals(kafkaConstants.DEV)) {
-            config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, "server1:9092");
-            // Add other cluster-specific properties if needed
-        } else if (clusterName.equals(kafkaConstants.CLUSTER_2) && clusterEnv.equals(kafkaConstants.DEV)) {
-            config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, "server2:9092");
-            // Add other cluster-specific properties if needed
-        } else {
-            throw new IllegalArgumentException("Invalid clusterName or environment");
-        }
+    public ClusterService(AppConfig appConfig, ClusterRegistry clusterRegistry) {
+        this.appConfig = appConfig;
+        this.clusterRegistry = clusterRegistry;
+    }
 
+    public Properties getKafkaAdminConfig(String clusterName,String clusterEnv) {
+        ClusterKey clusterKey = new ClusterKey(clusterName, clusterEnv);
+        Properties config = new Properties();
 
         // Add common configuration properties
         config.put(AdminClientConfig.CLIENT_ID_CONFIG, "admin-client");
-        // Add other common properties if needed
+        config.putAll(appConfig.commonAdminProperties());
 
+        // Add cluster-specific configuration from the registry, then any override from the application configuration
+        Properties registered = clusterRegistry.lookup(clusterKey);
+        if (registered != null) {
+            config.putAll(registered);
+        }
+        config.putAll(appConfig.clusterAdminProperties(clusterKey));
+
+        if (!config.containsKey(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG)) {
+            throw new IllegalArgumentException("Invalid clusterName or environment: " + clusterKey);
+        }
         return config;
     }
 }
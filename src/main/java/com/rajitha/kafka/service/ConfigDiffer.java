@@ -0,0 +1,113 @@
+package com.rajitha.kafka.service;
+
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+// Diffs the desired topic configs against the described ones, comparing values the way the broker interprets them
+public class ConfigDiffer {
+
+    public record ConfigChanges(Map<String, String> sets, List<String> deletes) {
+
+        public ConfigChanges {
+            sets = Collections.unmodifiableMap(new LinkedHashMap<>(sets));
+            deletes = List.copyOf(deletes);
+        }
+
+        public boolean isEmpty() {
+            return sets.isEmpty() && deletes.isEmpty();
+        }
+    }
+
+    private final boolean deleteRemovedConfigs;
+
+    public ConfigDiffer(boolean deleteRemovedConfigs) {
+        this.deleteRemovedConfigs = deleteRemovedConfigs;
+    }
+
+    public ConfigChanges diff(Map<String, String> desiredConfig, Config clusterConfig) {
+        Map<String, String> sets = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : desiredConfig.entrySet()) {
+            ConfigEntry clusterEntry = clusterConfig.get(entry.getKey());
+            // The described value is the effective one, whether it is a topic override, a broker setting or the default
+            if (clusterEntry == null || !sameValue(entry.getValue(), clusterEntry.value())) {
+                sets.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<String> deletes = new ArrayList<>();
+        if (deleteRemovedConfigs) {
+            for (ConfigEntry clusterEntry : clusterConfig.entries()) {
+                if (clusterEntry.source() != ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG
+                        || clusterEntry.isReadOnly() || desiredConfig.containsKey(clusterEntry.name())) {
+                    continue;
+                }
+                // An override that equals the value the topic would inherit changes nothing, so it is left alone
+                String inherited = inheritedValue(clusterEntry);
+                if (inherited == null || !sameValue(clusterEntry.value(), inherited)) {
+                    deletes.add(clusterEntry.name());
+                }
+            }
+        }
+        return new ConfigChanges(sets, deletes);
+    }
+
+    // Compares plain maps of values, used when no described configs are available
+    public Map<String, String> diff(Map<String, String> desiredConfig, Map<String, String> clusterConfig) {
+        Map<String, String> sets = new HashMap<>();
+        for (Map.Entry<String, String> entry : desiredConfig.entrySet()) {
+            String clusterValue = clusterConfig.get(entry.getKey());
+            if (clusterValue == null || !sameValue(entry.getValue(), clusterValue)) {
+                sets.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return sets;
+    }
+
+    public static boolean sameValue(String left, String right) {
+        if (left == null || right == null) {
+            return Objects.equals(left, right);
+        }
+        return normalize(left).equals(normalize(right));
+    }
+
+    // 604800000, "604800000" and 6.048E8 are the same number; TRUE and true the same flag; lists ignore blanks around commas,
+    // and a list written as a yaml sequence ([a, b] once turned into text) is the same as the comma separated a,b
+    public static String normalize(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '[' && trimmed.charAt(trimmed.length() - 1) == ']') {
+            trimmed = trimmed.substring(1, trimmed.length() - 1).trim();
+        }
+        if (trimmed.equalsIgnoreCase("true") || trimmed.equalsIgnoreCase("false")) {
+            return trimmed.toLowerCase(Locale.ROOT);
+        }
+        if (!trimmed.isEmpty() && (Character.isDigit(trimmed.charAt(0)) || trimmed.charAt(0) == '-' || trimmed.charAt(0) == '.')) {
+            try {
+                BigDecimal number = new BigDecimal(trimmed.replace("_", ""));
+                return number.signum() == 0 ? "0" : number.stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                // Not a number, compared as text
+            }
+        }
+        if (trimmed.indexOf(',') >= 0) {
+            StringJoiner joiner = new StringJoiner(",");
+            for (String item : trimmed.split(",")) {
+                joiner.add(normalize(item));
+            }
+            return joiner.toString();
+        }
+        return trimmed;
+    }
+
+    // The first synonym below the topic override is the value the topic falls back to when the override is deleted
+    private static String inheritedValue(ConfigEntry entry) {
+        for (ConfigEntry.ConfigSynonym synonym : entry.synonyms()) {
+            if (synonym.source() != ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG) {
+                return synonym.value();
+            }
+        }
+        return null;
+    }
+}
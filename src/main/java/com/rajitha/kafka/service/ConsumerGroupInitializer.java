@@ -0,0 +1,239 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.config.kafkaConstants;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.model.TopicPlan;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsSpec;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+// Positions the consumer groups declared in the topic files, instead of a kafka-consumer-groups --reset-offsets per group
+// and topic: the offsets of all partitions of a batch are listed with one listOffsets per position, then every group gets
+// its offsets of all its topics of the batch in one alterConsumerGroupOffsets. Both are retried on transient errors, a
+// topic that was just created may not be known to every broker yet
+public class ConsumerGroupInitializer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsumerGroupInitializer.class);
+
+    private final RetryPolicy retryPolicy;
+    private final boolean positionExistingTopics;
+
+    public ConsumerGroupInitializer() {
+        this(RetryPolicy.NONE, false);
+    }
+
+    public ConsumerGroupInitializer(RetryPolicy retryPolicy, boolean positionExistingTopics) {
+        this.retryPolicy = retryPolicy;
+        this.positionExistingTopics = positionExistingTopics;
+    }
+
+    public static ConsumerGroupInitializer fromConfig(AppConfig appConfig, RetryPolicy retryPolicy) {
+        return new ConsumerGroupInitializer(retryPolicy, appConfig.getBoolean("positionConsumerGroupsOnExistingTopics", false));
+    }
+
+    // Created topics get every declared group. Existing topics are left alone unless positionExistingTopics is set: a group
+    // whose offsets expired would otherwise be reset and consume the topic again. With it, a group is positioned on an
+    // existing topic while it has no committed offset there, so a rerun finishes what a failed run left behind.
+    // Returns messages per topic
+    public Map<String, List<String>> initialize(ClusterContext context, Collection<TopicPlan> created, Collection<TopicPlan> existing)
+            throws InterruptedException {
+        Map<String, List<String>> messages = new LinkedHashMap<>();
+        // The partitions to position per group, with the position each one starts at
+        Map<String, Map<TopicPartition, String>> wanted = new TreeMap<>();
+        for (TopicPlan plan : created) {
+            plan.consumerGroups().forEach((groupId, position) -> wanted(wanted, groupId, plan.topicName(), plan.partitions(), position));
+        }
+        if (positionExistingTopics && !existing.isEmpty()) {
+            uncommitted(context, existing, wanted, messages);
+        }
+        if (wanted.isEmpty()) {
+            return messages;
+        }
+
+        Map<String, Set<TopicPartition>> byPosition = new HashMap<>();
+        wanted.values().forEach(partitions -> partitions.forEach((topicPartition, position) ->
+                byPosition.computeIfAbsent(position, key -> new HashSet<>()).add(topicPartition)));
+        Map<TopicPartition, Throwable> listFailures = new HashMap<>();
+        Map<String, Map<TopicPartition, Long>> offsets = listOffsets(context, byPosition, listFailures);
+
+        // A topic whose offsets could not all be listed is left out of the group, its other topics are still positioned
+        Map<String, Map<TopicPartition, OffsetAndMetadata>> groupOffsets = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<TopicPartition, String>> group : wanted.entrySet()) {
+            Set<String> failedTopics = new HashSet<>();
+            for (TopicPartition topicPartition : group.getValue().keySet()) {
+                Throwable failure = listFailures.get(topicPartition);
+                if (failure != null && failedTopics.add(topicPartition.topic())) {
+                    add(messages, topicPartition.topic(), "Failed to position consumer group " + group.getKey() + " (offsets of "
+                            + topicPartition + " could not be listed: " + failure.getMessage() + ")");
+                }
+            }
+            Map<TopicPartition, OffsetAndMetadata> groupPartitions = new HashMap<>();
+            group.getValue().forEach((topicPartition, position) -> {
+                if (!failedTopics.contains(topicPartition.topic())) {
+                    groupPartitions.put(topicPartition, new OffsetAndMetadata(offsets.get(position).get(topicPartition)));
+                }
+            });
+            if (!groupPartitions.isEmpty()) {
+                groupOffsets.put(group.getKey(), groupPartitions);
+            }
+        }
+
+        Map<String, Throwable> alterFailures = alterOffsets(context, groupOffsets);
+        for (Map.Entry<String, Map<TopicPartition, OffsetAndMetadata>> group : groupOffsets.entrySet()) {
+            String groupId = group.getKey();
+            Set<String> topics = new TreeSet<>();
+            group.getValue().keySet().forEach(topicPartition -> topics.add(topicPartition.topic()));
+            for (String topicName : topics) {
+                Throwable failure = alterFailures.get(groupId);
+                // Offsets of a group with active members cannot be changed by the admin client
+                add(messages, topicName, failure == null
+                        ? "Consumer group " + groupId + " positioned at " + wanted.get(groupId).get(new TopicPartition(topicName, 0))
+                        : "Failed to position consumer group " + groupId + " (" + failure.getMessage() + ")");
+            }
+        }
+        LOGGER.info("Positioned {} of {} consumer groups on {}", groupOffsets.size() - alterFailures.size(), wanted.size(), context.clusterKey());
+        return messages;
+    }
+
+    private static void wanted(Map<String, Map<TopicPartition, String>> wanted, String groupId, String topicName, int partitions, String position) {
+        Map<TopicPartition, String> groupPartitions = wanted.computeIfAbsent(groupId, key -> new HashMap<>());
+        for (int partition = 0; partition < partitions; partition++) {
+            groupPartitions.put(new TopicPartition(topicName, partition), position);
+        }
+    }
+
+    private static void add(Map<String, List<String>> messages, String topicName, String message) {
+        messages.computeIfAbsent(topicName, key -> new ArrayList<>()).add(message);
+    }
+
+    // One listConsumerGroupOffsets for all groups of the existing topics; a group is wanted on a topic where it has no offset yet
+    private void uncommitted(ClusterContext context, Collection<TopicPlan> existing, Map<String, Map<TopicPartition, String>> wanted,
+                             Map<String, List<String>> messages) throws InterruptedException {
+        Map<String, List<TopicPlan>> plansByGroup = new LinkedHashMap<>();
+        Map<String, ListConsumerGroupOffsetsSpec> specs = new LinkedHashMap<>();
+        for (TopicPlan plan : existing) {
+            for (String groupId : plan.consumerGroups().keySet()) {
+                plansByGroup.computeIfAbsent(groupId, key -> new ArrayList<>()).add(plan);
+            }
+        }
+        plansByGroup.forEach((groupId, plans) -> {
+            List<TopicPartition> topicPartitions = new ArrayList<>();
+            plans.forEach(plan -> {
+                for (int partition = 0; partition < plan.currentPartitions(); partition++) {
+                    topicPartitions.add(new TopicPartition(plan.topicName(), partition));
+                }
+            });
+            specs.put(groupId, new ListConsumerGroupOffsetsSpec().topicPartitions(topicPartitions));
+        });
+        Map<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>> futures = context.limiter().call("listConsumerGroupOffsets", () -> {
+            ListConsumerGroupOffsetsResult result = context.adminClient().listConsumerGroupOffsets(specs);
+            Map<String, KafkaFuture<Map<TopicPartition, OffsetAndMetadata>>> groupFutures = new LinkedHashMap<>();
+            specs.keySet().forEach(groupId -> groupFutures.put(groupId, result.partitionsToOffsetAndMetadata(groupId)));
+            return groupFutures;
+        });
+        for (Map.Entry<String, List<TopicPlan>> group : plansByGroup.entrySet()) {
+            String groupId = group.getKey();
+            Set<String> committedTopics = new HashSet<>();
+            try {
+                // Partitions without a committed offset come back with a null offset
+                futures.get(groupId).get().forEach((topicPartition, offset) -> {
+                    if (offset != null) {
+                        committedTopics.add(topicPartition.topic());
+                    }
+                });
+            } catch (ExecutionException e) {
+                // E.g. no Describe permission on the group; the topic itself is fine, the group is only left as it is
+                LOGGER.warn("Committed offsets of consumer group {} on {} could not be read: {}", groupId, context.clusterKey(), e.getCause().getMessage());
+                group.getValue().forEach(plan -> add(messages, plan.topicName(), "Consumer group " + groupId
+                        + " not checked (committed offsets could not be read: " + e.getCause().getMessage() + ")"));
+                continue;
+            }
+            for (TopicPlan plan : group.getValue()) {
+                if (!committedTopics.contains(plan.topicName())) {
+                    wanted(wanted, groupId, plan.topicName(), plan.currentPartitions(), plan.consumerGroups().get(groupId));
+                }
+            }
+        }
+    }
+
+    // A partition can only be listed at one position per request, so every attempt sends at most one request per position
+    private Map<String, Map<TopicPartition, Long>> listOffsets(ClusterContext context, Map<String, Set<TopicPartition>> byPosition,
+                                                              Map<TopicPartition, Throwable> failures) throws InterruptedException {
+        Map<String, Map<TopicPartition, Long>> offsets = new HashMap<>();
+        Map<String, Set<TopicPartition>> pending = byPosition;
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                Thread.sleep(retryPolicy.backoffMs(attempt));
+            }
+            Map<String, Map<TopicPartition, KafkaFuture<ListOffsetsResult.ListOffsetsResultInfo>>> futures = new HashMap<>();
+            for (Map.Entry<String, Set<TopicPartition>> entry : pending.entrySet()) {
+                OffsetSpec offsetSpec = kafkaConstants.EARLIEST.equals(entry.getKey()) ? OffsetSpec.earliest() : OffsetSpec.latest();
+                Map<TopicPartition, OffsetSpec> request = new HashMap<>();
+                entry.getValue().forEach(topicPartition -> request.put(topicPartition, offsetSpec));
+                futures.put(entry.getKey(), context.limiter().call("listOffsets", () -> {
+                    ListOffsetsResult result = context.adminClient().listOffsets(request);
+                    Map<TopicPartition, KafkaFuture<ListOffsetsResult.ListOffsetsResultInfo>> partitionFutures = new HashMap<>();
+                    request.keySet().forEach(topicPartition -> partitionFutures.put(topicPartition, result.partitionResult(topicPartition)));
+                    return partitionFutures;
+                }));
+            }
+            Map<String, Set<TopicPartition>> retries = new HashMap<>();
+            for (Map.Entry<String, Map<TopicPartition, KafkaFuture<ListOffsetsResult.ListOffsetsResultInfo>>> position : futures.entrySet()) {
+                for (Map.Entry<TopicPartition, KafkaFuture<ListOffsetsResult.ListOffsetsResultInfo>> entry : position.getValue().entrySet()) {
+                    try {
+                        offsets.computeIfAbsent(position.getKey(), key -> new HashMap<>()).put(entry.getKey(), entry.getValue().get().offset());
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof RetriableException && attempt < retryPolicy.maxRetries()) {
+                            retries.computeIfAbsent(position.getKey(), key -> new HashSet<>()).add(entry.getKey());
+                        } else {
+                            failures.put(entry.getKey(), e.getCause());
+                        }
+                    }
+                }
+            }
+            pending = retries;
+        }
+        return offsets;
+    }
+
+    // All groups are sent before any of them is waited for; returns the failure of each group that could not be positioned
+    private Map<String, Throwable> alterOffsets(ClusterContext context, Map<String, Map<TopicPartition, OffsetAndMetadata>> groupOffsets)
+            throws InterruptedException {
+        Map<String, Throwable> failures = new HashMap<>();
+        Set<String> pending = groupOffsets.keySet();
+        for (int attempt = 0; !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                Thread.sleep(retryPolicy.backoffMs(attempt));
+            }
+            Map<String, KafkaFuture<Void>> futures = new LinkedHashMap<>();
+            for (String groupId : pending) {
+                futures.put(groupId, context.limiter().callSingle("alterConsumerGroupOffsets",
+                        () -> context.adminClient().alterConsumerGroupOffsets(groupId, groupOffsets.get(groupId)).all()));
+            }
+            Set<String> retries = new LinkedHashSet<>();
+            for (Map.Entry<String, KafkaFuture<Void>> entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RetriableException && attempt < retryPolicy.maxRetries()) {
+                        retries.add(entry.getKey());
+                    } else {
+                        failures.put(entry.getKey(), e.getCause());
+                    }
+                }
+            }
+            pending = retries;
+        }
+        return failures;
+    }
+}
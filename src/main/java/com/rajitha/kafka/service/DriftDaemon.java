@@ -0,0 +1,133 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.ReconciliationPlan;
+import com.rajitha.kafka.model.TopicPlan;
+import com.rajitha.kafka.model.TopicSpec;
+import com.rajitha.kafka.utils.BitbucketRepositoryCloner;
+import com.rajitha.kafka.utils.GitTopicReader;
+import com.rajitha.kafka.utils.Metrics;
+import com.rajitha.kafka.utils.MetricsServer;
+import com.rajitha.kafka.utils.TopicSpecLoader;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Long-running mode: every cycle diffs all topics of the branch against the clusters and reconciles only the drifted ones
+public class DriftDaemon implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DriftDaemon.class);
+    public static final long DEFAULT_INTERVAL_MS = 300_000;
+
+    private final TopicService topicService;
+    private final BitbucketRepositoryCloner cloner;
+    private final TopicSpecLoader topicSpecLoader;
+    private final String topicsPath;
+    private final long intervalMs;
+    private final int metricsPort;
+    private final ScheduledExecutorService scheduler;
+    private MetricsServer metricsServer;
+    // The specs of the whole branch, parsed again only when the branch head moves
+    private String cachedCommitId;
+    private List<TopicSpec> cachedSpecs = List.of();
+
+    // A metricsPort of 0 disables the Prometheus endpoint; the loader of a daemon with a spec cache only parses the files
+    // that changed since the last head
+    public DriftDaemon(TopicService topicService, BitbucketRepositoryCloner cloner, String topicsPath, long intervalMs, int metricsPort,
+                       TopicSpecLoader topicSpecLoader) {
+        this.topicService = topicService;
+        this.cloner = cloner;
+        this.topicSpecLoader = topicSpecLoader;
+        this.topicsPath = topicsPath;
+        this.intervalMs = intervalMs;
+        this.metricsPort = metricsPort;
+        // Not a daemon thread, it keeps the JVM running until the process is stopped
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "drift-daemon"));
+    }
+
+    // The loader is the one of the caller, its spec cache file can only be opened once per process
+    public static DriftDaemon fromConfig(TopicService topicService, BitbucketRepositoryCloner cloner, AppConfig appConfig,
+                                         TopicSpecLoader topicSpecLoader) {
+        return new DriftDaemon(topicService, cloner, appConfig.getProperty("topicsPath", ""), appConfig.getLong("daemonIntervalMs", DEFAULT_INTERVAL_MS),
+                appConfig.getInt("metricsPort", 0), topicSpecLoader);
+    }
+
+    public void start() {
+        if (metricsPort > 0) {
+            try {
+                metricsServer = new MetricsServer(metricsPort);
+                metricsServer.start();
+            } catch (IOException e) {
+                // Drift detection does not depend on the endpoint, it runs without it
+                LOGGER.error("Unable to start the metrics endpoint on port {}", metricsPort, e);
+            }
+        }
+        LOGGER.info("Drift detection started, checking every {} ms", intervalMs);
+        scheduler.scheduleWithFixedDelay(this::runCycleSafely, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runCycleSafely() {
+        try {
+            runCycle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (GitAPIException | IOException | RuntimeException e) {
+            // A failed cycle is retried on the next schedule, the daemon keeps running
+            Metrics.increment("drift_cycle_failures", Map.of());
+            LOGGER.error("Drift detection cycle failed", e);
+        }
+    }
+
+    // One cycle: refresh the specs if the branch moved, plan against fresh cluster snapshots, apply the drifted topics
+    public Map<ClusterKey, Map<String, String>> runCycle() throws GitAPIException, IOException, InterruptedException {
+        Metrics.Sample sample = Metrics.start();
+        String headCommitId = cloner.remoteBranchHead();
+        if (!headCommitId.equals(cachedCommitId)) {
+            refreshSpecs(headCommitId);
+        }
+
+        ReconciliationPlan plan = topicService.plan(cachedCommitId, cachedSpecs);
+        List<TopicPlan> drifted = plan.topics().stream().filter(TopicPlan::hasChanges).toList();
+        Metrics.increment("drifted_topics", Map.of(), drifted.size());
+        if (drifted.isEmpty()) {
+            LOGGER.info("No drift on {} topics at commit {}, cycle took {} ms", plan.topics().size(), cachedCommitId,
+                    TimeUnit.NANOSECONDS.toMillis(sample.stop("drift_cycle", Map.of())));
+            return Map.of();
+        }
+        LOGGER.info("{} of {} topics drifted from commit {}, reconciling them", drifted.size(), plan.topics().size(), cachedCommitId);
+        Map<ClusterKey, Map<String, String>> results = topicService.apply(new ReconciliationPlan(plan.commitId(), plan.createdAt(), drifted));
+        LOGGER.info("Drift cycle took {} ms", TimeUnit.NANOSECONDS.toMillis(sample.stop("drift_cycle", Map.of())));
+        return results;
+    }
+
+    private void refreshSpecs(String headCommitId) throws GitAPIException, IOException {
+        try (Repository repository = cloner.fetchIntoBareRepository(headCommitId)) {
+            GitTopicReader reader = new GitTopicReader(repository, topicSpecLoader);
+            Map<String, ObjectId> blobIds = reader.listTopicBlobs(headCommitId, topicsPath);
+            TopicSpecLoader.LoadResult loadResult = reader.load(headCommitId, blobIds.keySet(), blobIds);
+            for (Map.Entry<String, List<String>> entry : loadResult.errors().entrySet()) {
+                LOGGER.error("Topic file {} is skipped: {}", entry.getKey(), String.join(", ", entry.getValue()));
+            }
+            cachedSpecs = loadResult.specs();
+            cachedCommitId = headCommitId;
+            LOGGER.info("Branch head moved to {}, parsed {} topics from {} files", headCommitId, cachedSpecs.size(), blobIds.size());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
+    }
+}
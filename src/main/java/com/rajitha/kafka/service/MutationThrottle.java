@@ -0,0 +1,163 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.utils.Metrics;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.ThrottlingQuotaExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// Adapts the size and the number of concurrent topic mutation requests of a cluster to its controller mutation quota:
+// the requests are sent without the client-side quota retries, a quota violation halves the request size and concurrency
+// and holds back all mutations of the cluster for the throttle time given by the broker, every request that goes
+// through grows the size again step by step (additive increase, multiplicative decrease)
+public class MutationThrottle {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MutationThrottle.class);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private final int maxBatchSize;
+    private final int maxConcurrency;
+    private final int batchSizeStep;
+    // Learned per cluster and kept across runs, like the quota itself
+    private final Map<ClusterKey, ClusterState> states = new ConcurrentHashMap<>();
+
+    public MutationThrottle() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public MutationThrottle(AppConfig appConfig) {
+        this(appConfig.getInt("mutationMaxBatchSize", appConfig.getInt("adminBatchSize", DEFAULT_MAX_BATCH_SIZE)),
+                appConfig.getInt("mutationMaxConcurrency", appConfig.getInt("maxInFlightRequestsPerCluster", DEFAULT_MAX_CONCURRENCY)));
+    }
+
+    public MutationThrottle(int maxBatchSize, int maxConcurrency) {
+        if (maxBatchSize <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("mutation batch size and concurrency must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxConcurrency = maxConcurrency;
+        this.batchSizeStep = Math.max(1, maxBatchSize / 10);
+    }
+
+    // Splits the items into requests of the current size of the cluster and sends them as slots free up; returns once every
+    // request was sent. Items rejected by the quota fail with ThrottlingQuotaExceededException and are meant to be sent again
+    public <K, T, V> Map<K, KafkaFuture<V>> send(ClusterContext context, String operation, Map<K, T> items,
+                                                 Function<Map<K, T>, Map<K, KafkaFuture<V>>> request) throws InterruptedException {
+        ClusterState state = states.computeIfAbsent(context.clusterKey(), key -> new ClusterState(key, maxBatchSize, maxConcurrency));
+        Map<String, String> tags = Metrics.tags("cluster", context.clusterKey().name(), "env", context.clusterKey().env(), "operation", operation);
+        Map<K, KafkaFuture<V>> futures = new LinkedHashMap<>();
+        Iterator<Map.Entry<K, T>> remaining = items.entrySet().iterator();
+        while (remaining.hasNext()) {
+            Slot slot = state.acquire();
+            Map<K, T> chunk = new LinkedHashMap<>();
+            while (remaining.hasNext() && chunk.size() < slot.batchSize()) {
+                Map.Entry<K, T> entry = remaining.next();
+                chunk.put(entry.getKey(), entry.getValue());
+            }
+            Map<K, KafkaFuture<V>> chunkFutures;
+            try {
+                chunkFutures = context.limiter().call(operation, () -> request.apply(chunk));
+            } catch (RuntimeException e) {
+                state.release(slot, chunk.size(), 0, false);
+                throw e;
+            }
+            futures.putAll(chunkFutures);
+            KafkaFuture.allOf(chunkFutures.values().toArray(new KafkaFuture<?>[0])).whenComplete((ignored, error) -> {
+                int throttleTimeMs = -1;
+                for (KafkaFuture<V> future : chunkFutures.values()) {
+                    if (failure(future) instanceof ThrottlingQuotaExceededException quotaExceeded) {
+                        throttleTimeMs = Math.max(throttleTimeMs, quotaExceeded.throttleTimeMs());
+                    }
+                }
+                if (throttleTimeMs >= 0) {
+                    Metrics.increment("admin_quota_violations", tags);
+                    LOGGER.warn("{} on {} exceeded the controller mutation quota, throttled for {} ms", operation, context.clusterKey(), throttleTimeMs);
+                }
+                state.release(slot, chunk.size(), Math.max(throttleTimeMs, 0), throttleTimeMs >= 0);
+            });
+        }
+        return futures;
+    }
+
+    private static Throwable failure(KafkaFuture<?> future) {
+        if (!future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // A request remembers the generation it was sent in, results of requests sent before the last decrease do not count
+    private record Slot(int batchSize, long generation) {
+    }
+
+    private final class ClusterState {
+        private final ClusterKey clusterKey;
+        private int batchSize;
+        private int concurrency;
+        private int inFlight;
+        private long generation;
+        private long throttledUntilNanos;
+
+        private ClusterState(ClusterKey clusterKey, int batchSize, int concurrency) {
+            this.clusterKey = clusterKey;
+            this.batchSize = batchSize;
+            this.concurrency = concurrency;
+            this.throttledUntilNanos = System.nanoTime();
+        }
+
+        // Waits for a free slot and for the end of a throttle
+        private synchronized Slot acquire() throws InterruptedException {
+            while (true) {
+                long throttledNanos = throttledUntilNanos - System.nanoTime();
+                if (throttledNanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, throttledNanos);
+                } else if (inFlight >= concurrency) {
+                    wait();
+                } else {
+                    inFlight++;
+                    return new Slot(batchSize, generation);
+                }
+            }
+        }
+
+        private synchronized void release(Slot slot, int sent, long throttleTimeMs, boolean throttled) {
+            inFlight--;
+            if (throttled) {
+                throttledUntilNanos = Math.max(throttledUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(throttleTimeMs));
+                // Requests in flight at the same time report the same violation, the size is only cut once for them
+                if (slot.generation() == generation) {
+                    generation++;
+                    batchSize = Math.max(1, batchSize / 2);
+                    concurrency = Math.max(1, concurrency / 2);
+                    LOGGER.info("Mutation requests on {} reduced to {} items and {} in flight", clusterKey, batchSize, concurrency);
+                }
+            } else if (slot.generation() == generation && sent >= batchSize) {
+                // Only a full request proves the quota allows more; the concurrency grows back once the size is at its maximum
+                if (batchSize < maxBatchSize) {
+                    batchSize = Math.min(maxBatchSize, batchSize + batchSizeStep);
+                } else if (concurrency < maxConcurrency) {
+                    concurrency++;
+                }
+                LOGGER.debug("Mutation requests on {} grown to {} items and {} in flight", clusterKey, batchSize, concurrency);
+            }
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.AdminClientFactory;
+import com.rajitha.kafka.kafka.AdminRequestLimiter;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.kafka.ClusterSnapshot;
+import com.rajitha.kafka.model.ClusterKey;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the topic batches of all clusters in parallel and fairly across clusters, limiting the admin requests in flight per cluster
+public class ReconciliationEngine implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconciliationEngine.class);
+    public static final int DEFAULT_WORKER_THREADS = 8;
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 4;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final AdminClientFactory adminClientFactory;
+    private final ExecutorService workers;
+    private final int maxInFlightRequestsPerCluster;
+    private final int batchSize;
+
+    // Handles one batch of topics of a cluster, returning one result per topic name
+    public interface BatchHandler<T, R> {
+        Map<String, R> handle(ClusterContext context, Map<String, T> batch) throws InterruptedException, ExecutionException;
+    }
+
+    // Builds the result of a topic whose batch or cluster failed as a whole
+    public interface FailureResult<R> {
+        R of(ClusterKey clusterKey, String topicName, String message);
+    }
+
+    public ReconciliationEngine(AdminClientFactory adminClientFactory) {
+        this(adminClientFactory, DEFAULT_WORKER_THREADS, DEFAULT_MAX_IN_FLIGHT_REQUESTS, DEFAULT_BATCH_SIZE);
+    }
+
+    public ReconciliationEngine(AdminClientFactory adminClientFactory, AppConfig appConfig) {
+        this(adminClientFactory,
+                appConfig.getInt("reconcileThreads", DEFAULT_WORKER_THREADS),
+                appConfig.getInt("maxInFlightRequestsPerCluster", DEFAULT_MAX_IN_FLIGHT_REQUESTS),
+                appConfig.getInt("adminBatchSize", DEFAULT_BATCH_SIZE));
+    }
+
+    public ReconciliationEngine(AdminClientFactory adminClientFactory, int workerThreads, int maxInFlightRequestsPerCluster, int batchSize) {
+        this.adminClientFactory = adminClientFactory;
+        this.maxInFlightRequestsPerCluster = maxInFlightRequestsPerCluster;
+        this.batchSize = batchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "reconcile-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T, R> Map<ClusterKey, Map<String, R>> execute(Map<ClusterKey, Map<String, T>> itemsByCluster,
+                                                           BatchHandler<T, R> handler, FailureResult<R> failureResult)
+            throws InterruptedException {
+        // Every cluster works off its batches in at most maxInFlightRequestsPerCluster lanes, more batches would only wait on
+        // its limiter while holding a worker. The lanes are submitted round-robin across the clusters, so the batches of one
+        // large cluster cannot queue up ahead of all the others
+        Map<ClusterKey, Map<String, R>> results = new LinkedHashMap<>();
+        Map<ClusterKey, List<CompletableFuture<Map<String, R>>>> pending = new LinkedHashMap<>();
+        Map<ClusterKey, List<Map<String, T>>> batchesByCluster = new LinkedHashMap<>();
+        List<List<Runnable>> lanesByCluster = new ArrayList<>();
+        for (Map.Entry<ClusterKey, Map<String, T>> entry : itemsByCluster.entrySet()) {
+            ClusterKey clusterKey = entry.getKey();
+            AdminClient adminClient;
+            try {
+                adminClient = adminClientFactory.getAdminClient(clusterKey);
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to get an admin client for cluster {}", clusterKey, e);
+                Map<String, R> clusterResults = new LinkedHashMap<>();
+                entry.getValue().keySet().forEach(topicName -> clusterResults.put(topicName, failureResult.of(clusterKey, topicName, e.getMessage())));
+                results.put(clusterKey, clusterResults);
+                continue;
+            }
+            // A fresh snapshot per call, shared by all batches of the cluster in this phase
+            AdminRequestLimiter limiter = new AdminRequestLimiter(clusterKey, maxInFlightRequestsPerCluster);
+            ClusterContext context = new ClusterContext(clusterKey, adminClient, limiter, new ClusterSnapshot(adminClient, limiter));
+            List<Map<String, T>> batches = split(entry.getValue());
+            List<CompletableFuture<Map<String, R>>> futures = new ArrayList<>();
+            batches.forEach(batch -> futures.add(new CompletableFuture<>()));
+            AtomicInteger nextBatch = new AtomicInteger();
+            List<Runnable> lanes = new ArrayList<>();
+            for (int lane = 0; lane < Math.min(maxInFlightRequestsPerCluster, batches.size()); lane++) {
+                lanes.add(() -> {
+                    for (int i = nextBatch.getAndIncrement(); i < batches.size(); i = nextBatch.getAndIncrement()) {
+                        try {
+                            futures.get(i).complete(handler.handle(context, batches.get(i)));
+                        } catch (Exception e) {
+                            futures.get(i).completeExceptionally(e);
+                        }
+                    }
+                });
+            }
+            LOGGER.info("Submitted {} topics in {} batches on {} lanes for cluster {}", entry.getValue().size(), batches.size(), lanes.size(), clusterKey);
+            lanesByCluster.add(lanes);
+            pending.put(clusterKey, futures);
+            batchesByCluster.put(clusterKey, batches);
+        }
+        for (int lane = 0; lane < maxInFlightRequestsPerCluster; lane++) {
+            for (List<Runnable> lanes : lanesByCluster) {
+                if (lane < lanes.size()) {
+                    workers.execute(lanes.get(lane));
+                }
+            }
+        }
+
+        try {
+            for (Map.Entry<ClusterKey, List<CompletableFuture<Map<String, R>>>> entry : pending.entrySet()) {
+                ClusterKey clusterKey = entry.getKey();
+                Map<String, R> clusterResults = new LinkedHashMap<>();
+                List<Map<String, T>> batches = batchesByCluster.get(clusterKey);
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    try {
+                        clusterResults.putAll(entry.getValue().get(i).get());
+                    } catch (ExecutionException e) {
+                        // A failing batch must not hide the outcome of the other batches and clusters
+                        LOGGER.error("Reconciliation batch failed on cluster {}", clusterKey, e.getCause());
+                        for (String topicName : batches.get(i).keySet()) {
+                            clusterResults.put(topicName, failureResult.of(clusterKey, topicName, e.getCause().getMessage()));
+                        }
+                    }
+                }
+                results.put(clusterKey, clusterResults);
+            }
+        } finally {
+            for (ClusterKey clusterKey : pending.keySet()) {
+                adminClientFactory.releaseAdminClient(clusterKey);
+            }
+        }
+        return results;
+    }
+
+    private <T> List<Map<String, T>> split(Map<String, T> items) {
+        List<Map<String, T>> batches = new ArrayList<>();
+        Map<String, T> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, T> entry : items.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue());
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
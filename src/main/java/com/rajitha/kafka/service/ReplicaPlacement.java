@@ -0,0 +1,77 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.kafka.BrokerLoad;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.*;
+
+// Computes the replicas of a partition for a new replication factor: the replicas that stay keep their order, so the
+// preferred leader does not move, new replicas go to racks the partition does not use yet and then to the least loaded brokers.
+// The load is the one of the whole cluster, replicas and disk usage of every broker, and each placement is recorded in it
+public class ReplicaPlacement {
+    private final Map<Integer, String> racks = new HashMap<>();
+    private final BrokerLoad brokerLoad;
+
+    public ReplicaPlacement(Collection<Node> brokers, BrokerLoad brokerLoad) {
+        for (Node broker : brokers) {
+            racks.put(broker.id(), broker.rack());
+        }
+        this.brokerLoad = brokerLoad;
+    }
+
+    public List<Integer> assign(TopicPartition topicPartition, List<Integer> currentReplicas, int replicationFactor) {
+        if (replicationFactor > racks.size()) {
+            throw new IllegalArgumentException("Replication factor " + replicationFactor + " exceeds the " + racks.size() + " brokers");
+        }
+        // The load is shared by the parallel batches of a cluster, a placement reads and updates it in one step
+        synchronized (brokerLoad) {
+            List<Integer> replicas = new ArrayList<>(currentReplicas);
+            while (replicas.size() > replicationFactor) {
+                Integer removed = surplusReplica(replicas);
+                replicas.remove(removed);
+                brokerLoad.removeReplica(topicPartition, removed);
+            }
+            while (replicas.size() < replicationFactor) {
+                int added = nextReplica(replicas);
+                replicas.add(added);
+                brokerLoad.addReplica(topicPartition, added);
+            }
+            return replicas;
+        }
+    }
+
+    // Never the preferred leader; first replicas on brokers that are gone, then on a rack used twice, then the most loaded
+    private Integer surplusReplica(List<Integer> replicas) {
+        Map<String, Integer> rackCounts = rackCounts(replicas);
+        Comparator<Integer> order = Comparator
+                .<Integer, Boolean>comparing(racks::containsKey)
+                .thenComparing(id -> rackCounts.getOrDefault(racks.get(id), 0) <= 1)
+                .thenComparing(id -> -brokerLoad.replicas(id))
+                .thenComparing(id -> -brokerLoad.usedBytes(id))
+                .thenComparing(id -> -id);
+        return replicas.subList(1, replicas.size()).stream().min(order).orElseThrow();
+    }
+
+    private int nextReplica(List<Integer> replicas) {
+        Map<String, Integer> rackCounts = rackCounts(replicas);
+        Comparator<Integer> order = Comparator
+                .<Integer>comparingInt(id -> rackCounts.getOrDefault(racks.get(id), 0))
+                .thenComparingInt(brokerLoad::replicas)
+                .thenComparingLong(brokerLoad::usedBytes)
+                .thenComparingInt(id -> id);
+        return racks.keySet().stream().filter(id -> !replicas.contains(id)).min(order).orElseThrow();
+    }
+
+    // Brokers without a rack each count as a rack of their own
+    private Map<String, Integer> rackCounts(List<Integer> replicas) {
+        Map<String, Integer> rackCounts = new HashMap<>();
+        for (Integer id : replicas) {
+            String rack = racks.get(id);
+            if (rack != null) {
+                rackCounts.merge(rack, 1, Integer::sum);
+            }
+        }
+        return rackCounts;
+    }
+}
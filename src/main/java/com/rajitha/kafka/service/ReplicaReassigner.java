@@ -0,0 +1,212 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.kafka.ClusterSnapshot;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicPlan;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.PartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Changes the replication factor of existing topics with partition reassignments, sent in waves so that at most
+// maxConcurrentReassignments partitions of a cluster are moving at the same time
+public class ReplicaReassigner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaReassigner.class);
+    public static final int DEFAULT_MAX_CONCURRENT_REASSIGNMENTS = 50;
+    public static final long DEFAULT_POLL_INTERVAL_MS = 1000;
+    public static final long DEFAULT_TIMEOUT_MS = 600_000;
+
+    private final int maxConcurrentReassignments;
+    private final long pollIntervalMs;
+    private final long timeoutMs;
+    // Shared by all batches of a cluster, so parallel batches together stay within the limit
+    private final Map<ClusterKey, Semaphore> slots = new ConcurrentHashMap<>();
+
+    public ReplicaReassigner() {
+        this(DEFAULT_MAX_CONCURRENT_REASSIGNMENTS, DEFAULT_POLL_INTERVAL_MS, DEFAULT_TIMEOUT_MS);
+    }
+
+    public ReplicaReassigner(AppConfig appConfig) {
+        this(appConfig.getInt("maxConcurrentReassignments", DEFAULT_MAX_CONCURRENT_REASSIGNMENTS),
+                appConfig.getLong("reassignmentPollIntervalMs", DEFAULT_POLL_INTERVAL_MS),
+                appConfig.getLong("reassignmentTimeoutMs", DEFAULT_TIMEOUT_MS));
+    }
+
+    public ReplicaReassigner(int maxConcurrentReassignments, long pollIntervalMs, long timeoutMs) {
+        if (maxConcurrentReassignments <= 0 || pollIntervalMs <= 0 || timeoutMs <= 0) {
+            throw new IllegalArgumentException("reassignment concurrency, poll interval and timeout must be positive");
+        }
+        this.maxConcurrentReassignments = maxConcurrentReassignments;
+        this.pollIntervalMs = pollIntervalMs;
+        this.timeoutMs = timeoutMs;
+    }
+
+    // Returns one result per topic once all its partitions reached the new replication factor, failed or timed out
+    public Map<String, String> reassign(ClusterContext context, Collection<TopicPlan> topicPlans) throws InterruptedException, ExecutionException {
+        ClusterKey clusterKey = context.clusterKey();
+        ClusterSnapshot snapshot = context.snapshot();
+        Map<String, List<String>> errors = new LinkedHashMap<>();
+        List<String> topicNames = new ArrayList<>();
+        topicPlans.forEach(topicPlan -> {
+            topicNames.add(topicPlan.topicName());
+            errors.put(topicPlan.topicName(), new ArrayList<>());
+        });
+
+        // Described again, partitions added earlier in the batch are reassigned as well
+        snapshot.invalidate(topicNames);
+        snapshot.load(topicNames);
+        Map<TopicPartition, List<Integer>> mismatched = new LinkedHashMap<>();
+        Map<String, Integer> replicationFactors = new HashMap<>();
+        for (TopicPlan topicPlan : topicPlans) {
+            TopicDescription description = snapshot.description(topicPlan.topicName());
+            if (description == null) {
+                Throwable failure = snapshot.failure(topicPlan.topicName());
+                errors.get(topicPlan.topicName()).add("Failed to describe topic for the replication factor change"
+                        + (failure == null ? "" : " (" + failure.getMessage() + ")"));
+                continue;
+            }
+            // A plan file or a stale plan may ask for more replicas than the cluster has brokers, only that topic fails
+            if (topicPlan.replicationFactor() > snapshot.brokers().size()) {
+                errors.get(topicPlan.topicName()).add("Failed to change the replication factor, " + topicPlan.replicationFactor()
+                        + " exceeds the " + snapshot.brokers().size() + " brokers of the cluster");
+                continue;
+            }
+            replicationFactors.put(topicPlan.topicName(), topicPlan.replicationFactor());
+            for (TopicPartitionInfo partition : description.partitions()) {
+                if (partition.replicas().size() != topicPlan.replicationFactor()) {
+                    mismatched.put(new TopicPartition(topicPlan.topicName(), partition.partition()),
+                            partition.replicas().stream().map(Node::id).toList());
+                }
+            }
+        }
+
+        // While a reassignment runs the replica list also holds the replicas being removed; one that already moves
+        // to the right replication factor, e.g. left over from a run that timed out, is only waited for (null target)
+        Map<TopicPartition, PartitionReassignment> ongoing = mismatched.isEmpty() ? Map.of() : context.limiter()
+                .callSingle("listPartitionReassignments", () -> context.adminClient().listPartitionReassignments(mismatched.keySet()).reassignments()).get();
+        // Built once per cluster and run from every topic and log dir, so the new replicas go where the cluster has room
+        ReplicaPlacement placement = new ReplicaPlacement(snapshot.brokers(), snapshot.brokerLoad());
+        Map<TopicPartition, NewPartitionReassignment> pending = new LinkedHashMap<>();
+        for (Map.Entry<TopicPartition, List<Integer>> entry : mismatched.entrySet()) {
+            int replicationFactor = replicationFactors.get(entry.getKey().topic());
+            List<Integer> replicas = entry.getValue();
+            PartitionReassignment reassignment = ongoing.get(entry.getKey());
+            if (reassignment != null) {
+                replicas = reassignment.replicas().stream().filter(id -> !reassignment.removingReplicas().contains(id)).toList();
+            }
+            pending.put(entry.getKey(), replicas.size() == replicationFactor && reassignment != null
+                    ? null : new NewPartitionReassignment(placement.assign(entry.getKey(), replicas, replicationFactor)));
+        }
+        LOGGER.info("Reassigning {} partitions of {} topics on {}", pending.size(), topicPlans.size(), clusterKey);
+
+        Semaphore clusterSlots = slots.computeIfAbsent(clusterKey, key -> new Semaphore(maxConcurrentReassignments));
+        Iterator<Map.Entry<TopicPartition, NewPartitionReassignment>> queue = pending.entrySet().iterator();
+        Set<TopicPartition> inFlight = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (queue.hasNext() || !inFlight.isEmpty()) {
+                // The next wave takes every slot that is free, a partition gives its slot back once its reassignment is done
+                Map<TopicPartition, Optional<NewPartitionReassignment>> wave = new LinkedHashMap<>();
+                boolean tracked = false;
+                while (queue.hasNext() && clusterSlots.tryAcquire()) {
+                    Map.Entry<TopicPartition, NewPartitionReassignment> next = queue.next();
+                    if (next.getValue() == null) {
+                        inFlight.add(next.getKey());
+                        tracked = true;
+                    } else {
+                        wave.put(next.getKey(), Optional.of(next.getValue()));
+                    }
+                }
+                if (wave.isEmpty() && inFlight.isEmpty() && !tracked) {
+                    // Other batches of the cluster hold every slot
+                    clusterSlots.acquire();
+                    clusterSlots.release();
+                    continue;
+                }
+                if (!wave.isEmpty()) {
+                    submit(context, wave, inFlight, clusterSlots, errors);
+                }
+                if (inFlight.isEmpty()) {
+                    continue;
+                }
+                if (System.nanoTime() > deadline) {
+                    break;
+                }
+                Thread.sleep(pollIntervalMs);
+                Set<TopicPartition> polled = Set.copyOf(inFlight);
+                Map<TopicPartition, PartitionReassignment> running = context.limiter()
+                        .callSingle("listPartitionReassignments", () -> context.adminClient().listPartitionReassignments(polled).reassignments()).get();
+                for (TopicPartition topicPartition : polled) {
+                    if (!running.containsKey(topicPartition)) {
+                        inFlight.remove(topicPartition);
+                        clusterSlots.release();
+                    }
+                }
+            }
+        } finally {
+            clusterSlots.release(inFlight.size());
+        }
+
+        // Reassignments that were submitted, or found running, go on on the brokers and the next run sees their progress;
+        // partitions still queued at the deadline were never sent and keep their replicas
+        Map<String, Integer> running = new HashMap<>();
+        Map<String, Integer> notStarted = new HashMap<>();
+        inFlight.forEach(topicPartition -> running.merge(topicPartition.topic(), 1, Integer::sum));
+        queue.forEachRemaining(entry -> (entry.getValue() == null ? running : notStarted).merge(entry.getKey().topic(), 1, Integer::sum));
+        for (String topicName : topicNames) {
+            if (notStarted.containsKey(topicName)) {
+                errors.get(topicName).add("Failed to change the replication factor within " + timeoutMs + " ms, "
+                        + notStarted.get(topicName) + " partitions were not reassigned");
+            }
+            if (running.containsKey(topicName)) {
+                errors.get(topicName).add("Failed to finish the replication factor change within " + timeoutMs + " ms, the reassignment of "
+                        + running.get(topicName) + " partitions goes on");
+            }
+        }
+        snapshot.invalidate(topicNames);
+
+        Map<String, String> results = new LinkedHashMap<>();
+        for (TopicPlan topicPlan : topicPlans) {
+            List<String> topicErrors = errors.get(topicPlan.topicName());
+            results.put(topicPlan.topicName(), topicErrors.isEmpty()
+                    ? "Replication factor changed from " + topicPlan.currentReplicationFactor() + " to " + topicPlan.replicationFactor()
+                    : String.join("; ", topicErrors));
+        }
+        return results;
+    }
+
+    private void submit(ClusterContext context, Map<TopicPartition, Optional<NewPartitionReassignment>> wave, Set<TopicPartition> inFlight,
+                        Semaphore clusterSlots, Map<String, List<String>> errors) throws InterruptedException {
+        Map<TopicPartition, KafkaFuture<Void>> futures;
+        try {
+            futures = context.limiter().call("alterPartitionReassignments", () -> context.adminClient().alterPartitionReassignments(wave).values());
+        } catch (RuntimeException e) {
+            clusterSlots.release(wave.size());
+            throw e;
+        }
+        for (Map.Entry<TopicPartition, KafkaFuture<Void>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().get();
+                inFlight.add(entry.getKey());
+            } catch (ExecutionException e) {
+                clusterSlots.release();
+                LOGGER.error("Reassignment of {} on {} failed: {}", entry.getKey(), context.clusterKey(), e.getCause().getMessage());
+                errors.get(entry.getKey().topic()).add("Failed to reassign partition " + entry.getKey().partition() + " (" + e.getCause().getMessage() + ")");
+            }
+        }
+        LOGGER.info("Reassignment wave of {} partitions submitted on {}, {} in flight", wave.size(), context.clusterKey(), inFlight.size());
+    }
+}
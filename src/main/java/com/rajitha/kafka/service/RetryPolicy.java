@@ -0,0 +1,39 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// How often and how long to wait before an admin operation that failed with a transient broker error is sent again.
+// Operations rejected by the controller mutation quota do not use up the retries, they are sent again until quotaTimeoutMs
+public record RetryPolicy(int maxRetries, long initialBackoffMs, long maxBackoffMs, long quotaTimeoutMs) {
+    public static final long DEFAULT_QUOTA_TIMEOUT_MS = 300_000;
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0);
+
+    public RetryPolicy {
+        if (maxRetries < 0 || initialBackoffMs < 0 || maxBackoffMs < initialBackoffMs || quotaTimeoutMs < 0) {
+            throw new IllegalArgumentException("Invalid retry policy: retries " + maxRetries + ", backoff " + initialBackoffMs + " to " + maxBackoffMs
+                    + " ms, quota timeout " + quotaTimeoutMs + " ms");
+        }
+    }
+
+    public RetryPolicy(int maxRetries, long initialBackoffMs, long maxBackoffMs) {
+        this(maxRetries, initialBackoffMs, maxBackoffMs, DEFAULT_QUOTA_TIMEOUT_MS);
+    }
+
+    public static RetryPolicy fromConfig(AppConfig appConfig) {
+        return new RetryPolicy(appConfig.getInt("topicRetries", 3), appConfig.getLong("topicRetryBackoffMs", 500),
+                appConfig.getLong("topicRetryMaxBackoffMs", 10_000), appConfig.getLong("mutationQuotaTimeoutMs", DEFAULT_QUOTA_TIMEOUT_MS));
+    }
+
+    public long quotaDeadlineNanos() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(quotaTimeoutMs);
+    }
+
+    // Exponential backoff with jitter, so the retries of parallel batches do not hit the controller at the same time
+    public long backoffMs(int attempt) {
+        long backoff = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return backoff == 0 ? 0 : ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+    }
+}
@@ -0,0 +1,133 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.model.ClusterKey;
+import org.apache.kafka.clients.admin.DeleteTopicsOptions;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicCollection;
+import org.apache.kafka.common.errors.ThrottlingQuotaExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Deletes topics in small batches at a bounded rate per cluster, never touching the protected topics
+public class TopicDeleter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopicDeleter.class);
+    public static final String DEFAULT_PROTECTED_TOPICS = "__.*";
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final double DEFAULT_DELETES_PER_SECOND = 10;
+
+    private final boolean enabled;
+    private final List<Pattern> protectedTopics;
+    private final int batchSize;
+    private final long nanosPerDelete;
+    // Shared by all batches of a cluster, so parallel batches together stay within the rate
+    private final Map<ClusterKey, long[]> nextDeleteNanos = new ConcurrentHashMap<>();
+
+    public TopicDeleter() {
+        this(false, DEFAULT_PROTECTED_TOPICS, DEFAULT_BATCH_SIZE, DEFAULT_DELETES_PER_SECOND);
+    }
+
+    public TopicDeleter(AppConfig appConfig) {
+        this(appConfig.getBoolean("deleteRemovedTopics", false),
+                appConfig.getProperty("protectedTopics", DEFAULT_PROTECTED_TOPICS),
+                appConfig.getInt("topicDeleteBatchSize", DEFAULT_BATCH_SIZE),
+                Double.parseDouble(appConfig.getProperty("topicDeletesPerSecond", String.valueOf(DEFAULT_DELETES_PER_SECOND))));
+    }
+
+    // protectedTopics is a comma separated list of regular expressions matched against the whole topic name
+    public TopicDeleter(boolean enabled, String protectedTopics, int batchSize, double deletesPerSecond) {
+        if (batchSize <= 0 || deletesPerSecond <= 0) {
+            throw new IllegalArgumentException("topic delete batch size and rate must be positive");
+        }
+        this.enabled = enabled;
+        this.protectedTopics = new ArrayList<>();
+        for (String pattern : protectedTopics.split(",")) {
+            if (!pattern.isBlank()) {
+                this.protectedTopics.add(Pattern.compile(pattern.trim()));
+            }
+        }
+        this.batchSize = batchSize;
+        this.nanosPerDelete = (long) (TimeUnit.SECONDS.toNanos(1) / deletesPerSecond);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isProtected(String topicName) {
+        for (Pattern pattern : protectedTopics) {
+            if (pattern.matcher(topicName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns one result per topic; disabled deletion and protected topics are reported and skipped. Deletes count against
+    // the controller mutation quota like creates, they go through the same throttle and a rejected topic is sent again until
+    // quotaDeadlineNanos
+    public Map<String, String> delete(ClusterContext context, Collection<String> topicNames, MutationThrottle mutationThrottle,
+                                      long quotaDeadlineNanos) throws InterruptedException, ExecutionException {
+        Map<String, String> results = new LinkedHashMap<>();
+        List<String> deletable = new ArrayList<>();
+        for (String topicName : topicNames) {
+            if (!enabled) {
+                results.put(topicName, "Topic deletion is disabled, topic is kept");
+            } else if (isProtected(topicName)) {
+                results.put(topicName, "Topic is protected from deletion");
+            } else {
+                deletable.add(topicName);
+            }
+        }
+
+        for (int start = 0; start < deletable.size(); start += batchSize) {
+            List<String> batch = deletable.subList(start, Math.min(start + batchSize, deletable.size()));
+            awaitRate(context.clusterKey(), batch.size());
+            Map<String, String> pending = new LinkedHashMap<>();
+            batch.forEach(topicName -> pending.put(topicName, topicName));
+            while (!pending.isEmpty()) {
+                Map<String, KafkaFuture<Void>> futures = mutationThrottle.send(context, "deleteTopics", pending, chunk -> context.adminClient()
+                        .deleteTopics(TopicCollection.ofTopicNames(chunk.keySet()), new DeleteTopicsOptions().retryOnQuotaViolation(false)).topicNameValues());
+                pending.clear();
+                boolean quotaRetryable = System.nanoTime() < quotaDeadlineNanos;
+                for (Map.Entry<String, KafkaFuture<Void>> entry : futures.entrySet()) {
+                    try {
+                        entry.getValue().get();
+                        context.snapshot().topicDeleted(entry.getKey());
+                        results.put(entry.getKey(), "Topic deleted successfully: " + entry.getKey());
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ThrottlingQuotaExceededException && quotaRetryable) {
+                            pending.put(entry.getKey(), entry.getKey());
+                            continue;
+                        }
+                        LOGGER.error("Failed to delete topic {} on {}: {}", entry.getKey(), context.clusterKey(), e.getCause().getMessage());
+                        results.put(entry.getKey(), "Failed to delete topic: " + entry.getKey() + " (" + e.getCause().getMessage() + ")");
+                    }
+                }
+            }
+            LOGGER.info("Deleted batch of {} topics on {}", batch.size(), context.clusterKey());
+        }
+        return results;
+    }
+
+    // Reserves the time slot of the given number of deletes and sleeps until it starts
+    private void awaitRate(ClusterKey clusterKey, int deletes) throws InterruptedException {
+        long[] next = nextDeleteNanos.computeIfAbsent(clusterKey, key -> new long[]{System.nanoTime()});
+        long startNanos;
+        synchronized (next) {
+            startNanos = Math.max(next[0], System.nanoTime());
+            next[0] = startNanos + deletes * nanosPerDelete;
+        }
+        long waitNanos = startNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
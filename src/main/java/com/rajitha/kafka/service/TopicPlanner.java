@@ -0,0 +1,160 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.kafka.ClusterSnapshot;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicPlan;
+import com.rajitha.kafka.model.TopicSpec;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+// Computes the plan of a batch of topics from the cluster snapshot, without changing anything on the cluster
+public class TopicPlanner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopicPlanner.class);
+    private final ConfigDiffer configDiffer;
+    private final boolean changeReplicationFactor;
+    private final CapacityPreflight capacityPreflight;
+
+    // With deleteRemovedConfigs, topic overrides that are not in the topic file any more are deleted;
+    // with changeReplicationFactor, existing topics are reassigned to the replication factor of the topic file
+    public TopicPlanner(boolean deleteRemovedConfigs, boolean changeReplicationFactor, CapacityPreflight capacityPreflight) {
+        this.configDiffer = new ConfigDiffer(deleteRemovedConfigs);
+        this.changeReplicationFactor = changeReplicationFactor;
+        this.capacityPreflight = capacityPreflight;
+    }
+
+    public static TopicPlanner fromConfig(AppConfig appConfig) {
+        return new TopicPlanner(appConfig.getBoolean("deleteRemovedConfigs", false), appConfig.getBoolean("changeReplicationFactor", false),
+                new CapacityPreflight(appConfig));
+    }
+
+    public Map<String, TopicPlan> planBatch(ClusterContext context, Map<String, TopicSpec> topics)
+            throws InterruptedException, ExecutionException {
+        ClusterKey clusterKey = context.clusterKey();
+        ClusterSnapshot snapshot = context.snapshot();
+        // Existence, partitions and configs all come from the snapshot, new topics are known from the listing
+        snapshot.load(topics.keySet());
+
+        Map<String, TopicPlan> plans = new LinkedHashMap<>();
+        for (Map.Entry<String, TopicSpec> entry : topics.entrySet()) {
+            String topicName = entry.getKey();
+            TopicSpec topicSpec = entry.getValue();
+            if (!snapshot.exists(topicName) && topicSpec.replicationFactor() > snapshot.brokers().size()) {
+                // The cluster would refuse the create, the topic is rejected before anything is sent
+                plans.put(topicName, new TopicPlan(clusterKey, topicName, TopicPlan.Action.NONE, topicSpec.partitions(), topicSpec.replicationFactor(),
+                        0, 0, Map.of(), List.of(), List.of("Topic cannot be created, replication factor " + topicSpec.replicationFactor()
+                        + " exceeds the " + snapshot.brokers().size() + " brokers of the cluster")));
+                continue;
+            }
+            if (!snapshot.exists(topicName)) {
+                LOGGER.debug("Topic '{}' is not available, it will be created with provided configuration.", topicName);
+                plans.put(topicName, new TopicPlan(clusterKey, topicName, TopicPlan.Action.CREATE, topicSpec.partitions(),
+                        topicSpec.replicationFactor(), 0, 0, topicSpec.config(), List.of(), List.of(), topicSpec.consumerGroups()));
+                continue;
+            }
+            if (snapshot.failure(topicName) != null) {
+                plans.put(topicName, TopicPlan.failed(clusterKey, topicName, "Failed to describe topic: " + snapshot.failure(topicName).getMessage()));
+                continue;
+            }
+
+            List<String> rejections = new ArrayList<>();
+            int filePartitions = topicSpec.partitions();
+            int clusterPartitions = snapshot.partitionCount(topicName);
+            int targetPartitions = clusterPartitions;
+            // Check for any partition increase
+            if (filePartitions > clusterPartitions) {
+                targetPartitions = filePartitions;
+                LOGGER.debug("Partition count of {} topic will be increased from {} to {}", topicName, clusterPartitions, filePartitions);
+            } else if (filePartitions < clusterPartitions) {
+                LOGGER.error("Partition count cannot be decreased in existing topic {}", topicName);
+                rejections.add("Partition count cannot be decreased from " + clusterPartitions + " to " + filePartitions);
+            }
+
+            int clusterReplicationFactor = currentReplicationFactor(snapshot.description(topicName), topicSpec.replicationFactor());
+            int targetReplicationFactor = clusterReplicationFactor;
+            if (clusterReplicationFactor != topicSpec.replicationFactor()) {
+                if (!changeReplicationFactor) {
+                    LOGGER.warn("Replication factor of {} is {} on the cluster and {} in the file, replication factor changes are disabled",
+                            topicName, clusterReplicationFactor, topicSpec.replicationFactor());
+                } else if (topicSpec.replicationFactor() > snapshot.brokers().size()) {
+                    rejections.add("Replication factor " + topicSpec.replicationFactor() + " exceeds the " + snapshot.brokers().size() + " brokers of the cluster");
+                } else {
+                    targetReplicationFactor = topicSpec.replicationFactor();
+                    LOGGER.debug("Replication factor of {} topic will be changed from {} to {}", topicName, clusterReplicationFactor, targetReplicationFactor);
+                }
+            }
+
+            ConfigDiffer.ConfigChanges configChanges = configDiffer.diff(topicSpec.config(), snapshot.config(topicName));
+            if (LOGGER.isDebugEnabled()) {
+                // The full dump of the cluster config is only built when it is logged
+                LOGGER.debug("Configuration of {} in file : {}, on cluster : {}", topicName, topicSpec.config(), configValues(snapshot.config(topicName)));
+                LOGGER.debug("Configuration different from cluster and local for {} are : {}, removed : {}", topicName,
+                        configChanges.sets(), configChanges.deletes());
+            }
+
+            TopicPlan.Action action = targetPartitions > clusterPartitions || targetReplicationFactor != clusterReplicationFactor
+                    || !configChanges.isEmpty() ? TopicPlan.Action.UPDATE : TopicPlan.Action.NONE;
+            plans.put(topicName, new TopicPlan(clusterKey, topicName, action, targetPartitions, targetReplicationFactor,
+                    clusterPartitions, clusterReplicationFactor, configChanges.sets(), configChanges.deletes(), rejections, topicSpec.consumerGroups()));
+        }
+        // New partitions and replicas are projected onto the brokers before any of them is sent
+        return capacityPreflight.check(context, plans);
+    }
+
+    // The replica count of the first partition that differs from the file, so a half-finished change is still noticed
+    private static int currentReplicationFactor(TopicDescription description, int fileReplicationFactor) {
+        for (TopicPartitionInfo partition : description.partitions()) {
+            if (partition.replicas().size() != fileReplicationFactor) {
+                return partition.replicas().size();
+            }
+        }
+        return fileReplicationFactor;
+    }
+
+    // Plans the deletion of topics whose topic file or document was removed from the repository
+    public Map<String, TopicPlan> planDeletions(ClusterContext context, Map<String, TopicSpec> removedTopics, TopicDeleter topicDeleter)
+            throws InterruptedException, ExecutionException {
+        ClusterKey clusterKey = context.clusterKey();
+        ClusterSnapshot snapshot = context.snapshot();
+        Map<String, TopicPlan> plans = new LinkedHashMap<>();
+        for (String topicName : removedTopics.keySet()) {
+            List<String> rejections = new ArrayList<>();
+            TopicPlan.Action action = TopicPlan.Action.NONE;
+            if (!snapshot.exists(topicName)) {
+                LOGGER.debug("Removed topic '{}' does not exist on {}, nothing to delete", topicName, clusterKey);
+            } else if (!topicDeleter.isEnabled()) {
+                rejections.add("Topic was removed from the repository but topic deletion is disabled");
+            } else if (topicDeleter.isProtected(topicName)) {
+                LOGGER.warn("Removed topic '{}' is protected, it will not be deleted", topicName);
+                rejections.add("Topic is protected from deletion");
+            } else {
+                LOGGER.debug("Topic '{}' was removed from the repository, it will be deleted from {}", topicName, clusterKey);
+                action = TopicPlan.Action.DELETE;
+            }
+            plans.put(topicName, new TopicPlan(clusterKey, topicName, action, 0, 0, 0, 0, Map.of(), List.of(), rejections));
+        }
+        return plans;
+    }
+
+    private static Map<String, String> configValues(Config config) {
+        Map<String, String> values = new TreeMap<>();
+        if (config != null) {
+            for (ConfigEntry configEntry : config.entries()) {
+                values.put(configEntry.name(), configEntry.value());
+            }
+        }
+        return values;
+    }
+
+    public Map<String, String> compareConfigurations(Map<String, String> fileTopicConfig, Map<String, String> clusterTopicConfig) {
+        return configDiffer.diff(fileTopicConfig, clusterTopicConfig);
+    }
+}
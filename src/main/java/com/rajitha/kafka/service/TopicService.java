@@ -1,292 +1,327 @@
 package com.rajitha.kafka.service;
 
-import com.rajitha.kafka.kafka.AdminClientFactory;
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.kafka.AdminRequestLimiter;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.kafka.ClusterSnapshot;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.ReconciliationPlan;
+import com.rajitha.kafka.model.TopicPlan;
+import com.rajitha.kafka.model.TopicResult;
+import com.rajitha.kafka.model.TopicSpec;
 import org.apache.kafka.clients.admin.*;
 import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.config.ConfigResource;
-import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.errors.ThrottlingQuotaExceededException;
+import org.apache.kafka.common.errors.TopicExistsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-
-import static org.apache.commons.lang3.StringUtils.repeat;
-
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class TopicService {
     private static final Logger LOGGER = LoggerFactory.getLogger(TopicService.class);
-    private final AdminClientFactory adminClientFactory;
-    private final String asterisks = repeat("*", 42);
-
-    public TopicService() {
-        this.adminClientFactory = new AdminClientFactory();
+    public static final String IN_SYNC_RESULT = "Topic is in sync, no change needed";
+    private final ReconciliationEngine reconciliationEngine;
+    private final TopicPlanner topicPlanner;
+    private final TopicDeleter topicDeleter;
+    private final RetryPolicy retryPolicy;
+    private final ReplicaReassigner replicaReassigner;
+    private final MutationThrottle mutationThrottle;
+    private final ConsumerGroupInitializer consumerGroupInitializer;
+
+    public TopicService(ReconciliationEngine reconciliationEngine, TopicPlanner topicPlanner, TopicDeleter topicDeleter, RetryPolicy retryPolicy,
+                        ReplicaReassigner replicaReassigner, MutationThrottle mutationThrottle, ConsumerGroupInitializer consumerGroupInitializer) {
+        this.reconciliationEngine = reconciliationEngine;
+        this.topicPlanner = topicPlanner;
+        this.topicDeleter = topicDeleter;
+        this.retryPolicy = retryPolicy;
+        this.replicaReassigner = replicaReassigner;
+        this.mutationThrottle = mutationThrottle;
+        this.consumerGroupInitializer = consumerGroupInitializer;
     }
 
-    public void createOrUpdateTopic(Map<String, Object> topicConfig) throws ExecutionException, InterruptedException {
-        // Getting topic and cluster configuration from input map topicConfig
-        String topicName = (String) topicConfig.get("topicName");
-        Map<String, Object> spec = (Map<String, Object>) topicConfig.get("spec");
-        Map<String, Object> targetCluster = (Map<String, Object>) spec.get("target-cluster");
-        String clusterName = (String) targetCluster.get("name");
-        String clusterEnv = (String) targetCluster.get("env");
-
-        LOGGER.info("Topic Name: {}", topicName);
-        LOGGER.info("Cluster Name: {}", clusterName);
-        LOGGER.info("Cluster Environment: {}", clusterEnv);
-
-        AdminClient adminClient = adminClientFactory.getAdminClient(clusterName, clusterEnv);
-
-        boolean isTopicPresent = isTopicPresent(adminClient, topicName);
+    // Every collaborator configured from the same properties, as used by the command line and the scale harness
+    public static TopicService fromConfig(ReconciliationEngine reconciliationEngine, AppConfig appConfig) {
+        RetryPolicy retryPolicy = RetryPolicy.fromConfig(appConfig);
+        return new TopicService(reconciliationEngine, TopicPlanner.fromConfig(appConfig), new TopicDeleter(appConfig), retryPolicy,
+                new ReplicaReassigner(appConfig), new MutationThrottle(appConfig), ConsumerGroupInitializer.fromConfig(appConfig, retryPolicy));
+    }
 
-        if (isTopicPresent) {
-            LOGGER.info("Topic '{}' is available.", topicName);
-            LOGGER.info("Lets check for any config update for the topic");
-            LOGGER.info(asterisks);
-            updateTopic(adminClient, topicConfig);
-        } else {
-            LOGGER.info(asterisks);
-            LOGGER.info("Topic '{}' is not available.", topicName);
-            LOGGER.info("Hence creating the topic with provided configuration");
-            LOGGER.info(asterisks);
-            String createTopic_result=createTopic(adminClient, topicConfig);
-            LOGGER.info(createTopic_result);
-        }
-        closeAdminClient(adminClient);
+    public void createOrUpdateTopic(Map<String, Object> topicConfig) throws InterruptedException {
+        reconcile(Collections.singletonList(TopicSpec.fromYaml(topicConfig, null)));
     }
 
-    public String createTopic(AdminClient adminClient, Map<String, Object> topicConfig) {
-        // Getting topic and cluster configuration from input map topicConfig
-        String topicName = (String) topicConfig.get("topicName");
-        Map<String, Object> spec = (Map<String, Object>) topicConfig.get("spec");
-        Map<String, Object> config = (Map<String, Object>) spec.get("config");
-        int partitions = (int) spec.get("partitions");
-        int replicationFactor = (int) spec.get("replication-factor");
+    public Map<ClusterKey, Map<String, String>> reconcile(Collection<TopicSpec> topicSpecs) throws InterruptedException {
+        return apply(plan(null, topicSpecs));
+    }
 
-        // Create a new HashMap to store the config section
-        Map<String, String> configSection = new HashMap<>();
+    public ReconciliationPlan plan(String commitId, Collection<TopicSpec> topicSpecs) throws InterruptedException {
+        return plan(commitId, topicSpecs, Collections.emptyList());
+    }
 
-        // Convert the values to String and store in the config section HashMap
-        for (Map.Entry<String, Object> entry : config.entrySet()) {
-            configSection.put(entry.getKey(), entry.getValue().toString());
+    // Planning phase: one snapshot per cluster, nothing is changed on the clusters.
+    // removedTopics are the topics of deleted or renamed topic files that no current topic file declares any more
+    public ReconciliationPlan plan(String commitId, Collection<TopicSpec> topicSpecs, Collection<TopicSpec> removedTopics)
+            throws InterruptedException {
+        // Group the topic specs by target cluster so that every cluster gets one batch of admin calls
+        Map<ClusterKey, Map<String, TopicSpec>> topicsByCluster = groupByCluster(topicSpecs);
+        for (Map.Entry<ClusterKey, Map<String, TopicSpec>> entry : topicsByCluster.entrySet()) {
+            LOGGER.info("Cluster {} has {} topics to plan", entry.getKey(), entry.getValue().size());
         }
 
-        // Print the topic configuration from the repository
-        LOGGER.info("Printing the topic configuration from the repository :");
-        LOGGER.info("topic name : {}",topicName);
-        LOGGER.info("partitions : {}",partitions);
-        LOGGER.info("replication factor : {}",replicationFactor);
-        LOGGER.info("Printing HashMap using a loop:");
-        for (Map.Entry<String, String> entry : configSection.entrySet()) {
-            LOGGER.info("{} -> {}", entry.getKey(), entry.getValue());
+        Map<ClusterKey, Map<String, TopicPlan>> plans = reconciliationEngine.execute(topicsByCluster, topicPlanner::planBatch, TopicPlan::failed);
+        List<TopicPlan> topicPlans = new ArrayList<>();
+        plans.values().forEach(clusterPlans -> topicPlans.addAll(clusterPlans.values()));
+        if (!removedTopics.isEmpty()) {
+            Map<ClusterKey, Map<String, TopicPlan>> deletions = reconciliationEngine.execute(groupByCluster(removedTopics),
+                    (context, batch) -> topicPlanner.planDeletions(context, batch, topicDeleter), TopicPlan::failed);
+            deletions.values().forEach(clusterPlans -> topicPlans.addAll(clusterPlans.values()));
         }
+        ReconciliationPlan plan = new ReconciliationPlan(commitId, Instant.now(), topicPlans);
+        LOGGER.info("Plan computed for {} topics, {} of them with changes", topicPlans.size(), plan.changeCount());
+        return plan;
+    }
 
-        try {
-            NewTopic newTopic = new NewTopic(topicName, partitions, (short) replicationFactor);
-            newTopic.configs(configSection);
-            CreateTopicsResult createTopicsResult = adminClient.createTopics(Collections.singleton(newTopic));
-            createTopicsResult.all().get(); // Wait for topic creation to complete
-            LOGGER.info("Topic '{}' created successfully.", topicName);
-            return "Topic created successfully: " + topicName;
-        } catch (InterruptedException | ExecutionException e) {
-            LOGGER.error("Error occurred while creating the topic '{}'.", topicName, e);
-            return "Failed to create topic: " + topicName;
+    private static Map<ClusterKey, Map<String, TopicSpec>> groupByCluster(Collection<TopicSpec> topicSpecs) {
+        Map<ClusterKey, Map<String, TopicSpec>> topicsByCluster = new LinkedHashMap<>();
+        for (TopicSpec topicSpec : topicSpecs) {
+            topicsByCluster.computeIfAbsent(topicSpec.cluster(), key -> new LinkedHashMap<>()).put(topicSpec.topicName(), topicSpec);
         }
+        return topicsByCluster;
     }
 
-    public void updateTopic(AdminClient adminClient, Map<String, Object> topicConfig) {
-
-        // Getting topic and cluster configuration from input map topicConfig
-        String topicName = (String) topicConfig.get("topicName");
-        Map<String, Object> fileSpec = (Map<String, Object>) topicConfig.get("spec");
-        Map<String, Object> fileTopicConfig = (Map<String, Object>) fileSpec.get("config");
-        int filePartitions = (int) fileSpec.get("partitions");
-        int fileReplicationFactor = (int) fileSpec.get("replication-factor");
-
-        // Create a new HashMap to store the config section
-        Map<String, String> fileConfigConverted = new HashMap<>();
+    // Apply phase: executes a plan in batches per cluster, clusters in parallel
+    public Map<ClusterKey, Map<String, String>> apply(ReconciliationPlan plan) throws InterruptedException {
+        return apply(plan, results -> {
+        });
+    }
 
-        // Convert the values to String and store in the config section HashMap
-        for (Map.Entry<String, Object> entry : fileTopicConfig.entrySet()) {
-            fileConfigConverted.put(entry.getKey(), entry.getValue().toString());
+    // The listener receives the results of every batch as soon as the batch is done, from the worker threads
+    public Map<ClusterKey, Map<String, String>> apply(ReconciliationPlan plan, Consumer<List<TopicResult>> listener) throws InterruptedException {
+        Map<ClusterKey, Map<String, TopicPlan>> plansByCluster = new LinkedHashMap<>();
+        for (TopicPlan topicPlan : plan.topics()) {
+            plansByCluster.computeIfAbsent(topicPlan.cluster(), key -> new LinkedHashMap<>()).put(topicPlan.topicName(), topicPlan);
         }
+        // Clusters are reconciled in parallel, the pooled admin clients stay open until shutdown
+        return reconciliationEngine.execute(plansByCluster, (context, batch) -> applyBatch(context, batch, listener),
+                (clusterKey, topicName, message) -> {
+                    String result = "Failed to reconcile topic: " + message;
+                    TopicPlan topicPlan = plansByCluster.get(clusterKey).get(topicName);
+                    listener.accept(List.of(new TopicResult(topicPlan, TopicResult.Status.FAILED, 0, result, List.of(result))));
+                    return result;
+                });
+    }
 
-        //Print the configuration from repository
-        LOGGER.info("Printing the topic configuration from the repository :");
-        LOGGER.info(asterisks);
-        LOGGER.info("topic name : {}",topicName);
-        LOGGER.info("partitions : {}",filePartitions);
-        LOGGER.info("replication factor : {}",fileReplicationFactor);
-        LOGGER.info("Printing HashMap using a loop:");
-        for (Map.Entry<String, String> entry : fileConfigConverted.entrySet()) {
-            LOGGER.info("{} -> {}", entry.getKey(), entry.getValue());
-        }
-        LOGGER.info(asterisks);
+    public Map<String, String> applyBatch(ClusterContext context, Map<String, TopicPlan> topics)
+            throws InterruptedException, ExecutionException {
+        return applyBatch(context, topics, results -> {
+        });
+    }
 
-        // Call the getTopicDetails method
-        Map<String, Object> topicDetails = getTopicDetails(adminClient, topicName);
-        if (topicDetails != null) {
-            // Retrieve the partition count, replication factor, and configuration
-            int clusterPartitions = (int) topicDetails.get("partitions");
-            int clusterReplicationFactor = (int) topicDetails.get("replicationFactor");
-            Map<String, String> clusterTopicConfig = (Map<String, String>) topicDetails.get("config");
+    private Map<String, String> applyBatch(ClusterContext context, Map<String, TopicPlan> topics, Consumer<List<TopicResult>> listener)
+            throws InterruptedException, ExecutionException {
+        long batchStarted = System.nanoTime();
+        // Completion time of the last admin operation of every topic, recorded by the futures themselves
+        Map<String, Long> completedAt = new ConcurrentHashMap<>();
+        ClusterKey clusterKey = context.clusterKey();
+        AdminClient adminClient = context.adminClient();
+        AdminRequestLimiter limiter = context.limiter();
+        ClusterSnapshot snapshot = context.snapshot();
+        Map<String, List<String>> topicResults = new LinkedHashMap<>();
+
+        Map<String, NewTopic> newTopics = new LinkedHashMap<>();
+        Map<String, NewPartitions> partitionIncreases = new LinkedHashMap<>();
+        Map<ConfigResource, Collection<AlterConfigOp>> configUpdates = new LinkedHashMap<>();
+        List<String> deletions = new ArrayList<>();
+        for (TopicPlan topicPlan : topics.values()) {
+            String topicName = topicPlan.topicName();
+            topicResults.put(topicName, new ArrayList<>(topicPlan.rejections()));
+            if (topicPlan.action() == TopicPlan.Action.CREATE) {
+                newTopics.put(topicName, new NewTopic(topicName, topicPlan.partitions(), (short) topicPlan.replicationFactor()).configs(topicPlan.configSets()));
+            } else if (topicPlan.action() == TopicPlan.Action.DELETE) {
+                deletions.add(topicName);
+            } else if (topicPlan.action() == TopicPlan.Action.UPDATE) {
+                if (topicPlan.increasesPartitions()) {
+                    partitionIncreases.put(topicName, NewPartitions.increaseTo(topicPlan.partitions()));
+                }
+                if (!topicPlan.configSets().isEmpty() || !topicPlan.configDeletes().isEmpty()) {
+                    List<AlterConfigOp> configOps = new ArrayList<>();
+                    for (Map.Entry<String, String> diff : topicPlan.configSets().entrySet()) {
+                        configOps.add(new AlterConfigOp(new ConfigEntry(diff.getKey(), diff.getValue()), AlterConfigOp.OpType.SET));
+                    }
+                    for (String removed : topicPlan.configDeletes()) {
+                        configOps.add(new AlterConfigOp(new ConfigEntry(removed, null), AlterConfigOp.OpType.DELETE));
+                    }
+                    configUpdates.put(new ConfigResource(ConfigResource.Type.TOPIC, topicName), configOps);
+                }
+            }
+        }
 
-            // Print the cluster topic configuration values
-            LOGGER.info("Configurations currently in cluster");
-            LOGGER.info(asterisks);
-            LOGGER.info("Topic: " + topicName);
-            LOGGER.info("Partitions: " + clusterPartitions);
-            LOGGER.info("Replication Factor: " + clusterReplicationFactor);
-            LOGGER.info("Configuration:");
-            for (Map.Entry<String, String> entry : clusterTopicConfig.entrySet()) {
-                LOGGER.info(entry.getKey() + " -> " + entry.getValue());
+        // Every round only resends the operations that failed with a transient error, the other topics of the batch are done.
+        // Operations rejected by the controller mutation quota are sent again until the quota deadline, the throttle waits out
+        // the quota and shrinks the requests, so they do not use up the retries of transient errors
+        Map<String, NewTopic> pendingCreates = newTopics;
+        Map<String, NewPartitions> pendingPartitions = partitionIncreases;
+        Map<ConfigResource, Collection<AlterConfigOp>> pendingConfigs = configUpdates;
+        Set<String> created = new HashSet<>();
+        long quotaDeadlineNanos = retryPolicy.quotaDeadlineNanos();
+        boolean transientErrors = false;
+        for (int round = 0, attempt = 0; !pendingCreates.isEmpty() || !pendingPartitions.isEmpty() || !pendingConfigs.isEmpty(); round++) {
+            if (transientErrors) {
+                attempt++;
+                long backoffMs = retryPolicy.backoffMs(attempt);
+                LOGGER.warn("Retrying {} admin operations on {} after transient errors in {} ms, attempt {} of {}",
+                        pendingCreates.size() + pendingPartitions.size() + pendingConfigs.size(), clusterKey, backoffMs, attempt, retryPolicy.maxRetries());
+                Thread.sleep(backoffMs);
             }
-            LOGGER.info(asterisks);
-            // Call the compareConfigurations method
-            Map<String, String> differentConfigurations = compareConfigurations(fileConfigConverted, clusterTopicConfig);
-            // Print the different configurations
-            if (!differentConfigurations.isEmpty()){
-                LOGGER.info("Configuration different from cluster and local are : ");
-                for (Map.Entry<String, String> entry : differentConfigurations.entrySet()) {
-                    LOGGER.info(entry.getKey() + " -> " + entry.getValue());
+            boolean retryable = attempt < retryPolicy.maxRetries();
+            transientErrors = false;
+
+            // Fire all mutations before waiting on any of them
+            Map<String, NewTopic> creates = pendingCreates;
+            Map<String, NewPartitions> partitions = pendingPartitions;
+            Map<ConfigResource, Collection<AlterConfigOp>> configs = pendingConfigs;
+            Map<String, KafkaFuture<Void>> createFutures = mutationThrottle.send(context, "createTopics", creates,
+                    chunk -> adminClient.createTopics(chunk.values(), new CreateTopicsOptions().retryOnQuotaViolation(false)).values());
+            Map<String, KafkaFuture<Void>> partitionFutures = mutationThrottle.send(context, "createPartitions", partitions,
+                    chunk -> adminClient.createPartitions(chunk, new CreatePartitionsOptions().retryOnQuotaViolation(false)).values());
+            Map<ConfigResource, KafkaFuture<Void>> alterFutures = configs.isEmpty()
+                    ? Collections.emptyMap() : limiter.call("incrementalAlterConfigs", () -> adminClient.incrementalAlterConfigs(configs).values());
+
+            createFutures.forEach((topicName, future) -> recordCompletion(completedAt, topicName, future));
+            partitionFutures.forEach((topicName, future) -> recordCompletion(completedAt, topicName, future));
+            alterFutures.forEach((resource, future) -> recordCompletion(completedAt, resource.name(), future));
+
+            // Checked once all requests of the round are answered, so a cluster that keeps throttling cannot hold the run forever
+            boolean quotaRetryable = System.nanoTime() < quotaDeadlineNanos;
+            pendingCreates = new LinkedHashMap<>();
+            for (Map.Entry<String, KafkaFuture<Void>> entry : createFutures.entrySet()) {
+                Throwable error = awaitResult(entry.getValue());
+                // A create that timed out may still have succeeded, the retry then finds the topic
+                if (error instanceof TopicExistsException && round > 0) {
+                    error = null;
+                }
+                if (error instanceof ThrottlingQuotaExceededException ? quotaRetryable : error instanceof RetriableException && retryable) {
+                    transientErrors |= !(error instanceof ThrottlingQuotaExceededException);
+                    pendingCreates.put(entry.getKey(), creates.get(entry.getKey()));
+                    continue;
                 }
-            } else {
-                LOGGER.info("No change found in the topic config");
+                if (error == null) {
+                    snapshot.topicCreated(entry.getKey());
+                    created.add(entry.getKey());
+                }
+                topicResults.get(entry.getKey()).add(error == null
+                        ? "Topic created successfully: " + entry.getKey()
+                        : "Failed to create topic: " + entry.getKey() + " (" + error.getMessage() + ")");
             }
-
-            // Check for any partition increase and update the topic partitions
-            if (filePartitions != clusterPartitions) {
-                if (filePartitions > clusterPartitions) {
-                    // Perform the partition increase
-                    increasePartitions(adminClient, topicName, filePartitions);
-                    LOGGER.info("Partition count is increased in {} topic from {} to {}",topicName,clusterPartitions,filePartitions);
-                } else {
-                    LOGGER.error("Partition count cannot be decreased in existing topic");
+            pendingPartitions = new LinkedHashMap<>();
+            for (Map.Entry<String, KafkaFuture<Void>> entry : partitionFutures.entrySet()) {
+                Throwable error = awaitResult(entry.getValue());
+                if (error instanceof ThrottlingQuotaExceededException ? quotaRetryable : error instanceof RetriableException && retryable) {
+                    transientErrors |= !(error instanceof ThrottlingQuotaExceededException);
+                    pendingPartitions.put(entry.getKey(), partitions.get(entry.getKey()));
+                    continue;
                 }
-            } else {
-                LOGGER.info("Partition count is already matching. No partition increase needed.");
+                topicResults.get(entry.getKey()).add(error == null
+                        ? "Partition count increased to " + partitions.get(entry.getKey()).totalCount()
+                        : "Failed to increase partition count (" + error.getMessage() + ")");
             }
-
-            if (!differentConfigurations.isEmpty()) {
-                // Perform the topic configuration update
-                updateTopicConfiguration(adminClient, topicName, differentConfigurations);
-                LOGGER.info("Update topic configuration is successfully done");
-            } else {
-                LOGGER.info("Other configurations are in sync between file and cluster.");
+            pendingConfigs = new LinkedHashMap<>();
+            for (Map.Entry<ConfigResource, KafkaFuture<Void>> entry : alterFutures.entrySet()) {
+                Throwable error = awaitResult(entry.getValue());
+                if (error instanceof RetriableException && retryable) {
+                    transientErrors = true;
+                    pendingConfigs.put(entry.getKey(), configs.get(entry.getKey()));
+                    continue;
+                }
+                topicResults.get(entry.getKey().name()).add(error == null
+                        ? "Topic configuration updated successfully"
+                        : "Failed to update topic configuration (" + error.getMessage() + ")");
             }
-
-        } else {
-            LOGGER.error("Failed to retrieve topic details.update topic is not done , check the errors");
         }
-    }
 
-    public boolean isTopicPresent(AdminClient adminClient, String topicName) {
-        DescribeTopicsResult describeTopicsResult = adminClient.describeTopics(Collections.singleton(topicName));
-        try {
-            KafkaFuture<Map<String, TopicDescription>> futureTopicDescription = describeTopicsResult.all();
-            Map<String, TopicDescription> topicDescriptionMap = futureTopicDescription.get();
-            TopicDescription topicDescription = topicDescriptionMap.get(topicName);
-            return topicDescription != null;
-        } catch (InterruptedException | ExecutionException e) {
-            LOGGER.error("Error occurred while checking topic presence.", e);
-            if (e.getCause() instanceof UnknownTopicOrPartitionException) {
-                // Handle the UnknownTopicOrPartitionException here
-                LOGGER.info("Handling : UnknownTopicOrPartitionException since topic is not present.");
-            } else {
-                // Handle other exceptions
-                LOGGER.error("Error occurred while checking topic presence: " + e.getMessage());
+        // Declared consumer groups are positioned as soon as their topics exist and before the results are recorded, so a
+        // group that could not be positioned fails the topic; existing topics are only passed on for the opt-in repositioning
+        List<TopicPlan> createdWithGroups = new ArrayList<>();
+        List<TopicPlan> existingWithGroups = new ArrayList<>();
+        for (TopicPlan topicPlan : topics.values()) {
+            if (topicPlan.consumerGroups().isEmpty()) {
+                continue;
+            }
+            if (created.contains(topicPlan.topicName())) {
+                createdWithGroups.add(topicPlan);
+            } else if (topicPlan.action() == TopicPlan.Action.UPDATE || topicPlan.action() == TopicPlan.Action.NONE) {
+                existingWithGroups.add(topicPlan);
             }
-            return false;
         }
-    }
-
-    public Map<String, Object> getTopicDetails(AdminClient adminClient, String topicName) {
-        Map<String, Object> topicDetails = new HashMap<>();
-
-        DescribeTopicsResult describeTopicsResult = adminClient.describeTopics(Collections.singleton(topicName));
-        try {
-            KafkaFuture<Map<String, TopicDescription>> futureTopicDescription = describeTopicsResult.all();
-            Map<String, TopicDescription> topicDescriptionMap = futureTopicDescription.get();
-            TopicDescription topicDescription = topicDescriptionMap.get(topicName);
-
-            // Retrieve partition count and replication factor
-            int partitions = topicDescription.partitions().size();
-            int replicationFactor = topicDescription.partitions().get(0).replicas().size();
+        if (!createdWithGroups.isEmpty() || !existingWithGroups.isEmpty()) {
+            consumerGroupInitializer.initialize(context, createdWithGroups, existingWithGroups)
+                    .forEach((topicName, messages) -> topicResults.get(topicName).addAll(messages));
+        }
 
-            // Retrieve topic configuration
-            ConfigResource topicResource = new ConfigResource(ConfigResource.Type.TOPIC, topicName);
-            DescribeConfigsResult describeConfigsResult = adminClient.describeConfigs(Collections.singleton(topicResource));
-            Map<ConfigResource, Config> configMap = describeConfigsResult.all().get();
-            Config topicConfig = configMap.get(topicResource);
-            Map<String, String> config = new HashMap<>();
-            for (ConfigEntry entry : topicConfig.entries()) {
-                config.put(entry.name(), entry.value());
+        // Replication factor changes move data between brokers, they run in waves once the new partitions exist
+        List<TopicPlan> replicationChanges = topics.values().stream().filter(TopicPlan::changesReplicationFactor).toList();
+        if (!replicationChanges.isEmpty()) {
+            for (Map.Entry<String, String> entry : replicaReassigner.reassign(context, replicationChanges).entrySet()) {
+                topicResults.get(entry.getKey()).add(entry.getValue());
+                completedAt.put(entry.getKey(), System.nanoTime());
             }
-
-            // Populate the topic details map
-            topicDetails.put("partitions", partitions);
-            topicDetails.put("replicationFactor", replicationFactor);
-            topicDetails.put("config", config);
-
-            return topicDetails;
-        } catch (InterruptedException | ExecutionException e) {
-            LOGGER.error("Error occurred while retrieving topic details.", e);
-            return null;
         }
-    }
-
-    public Map<String, String> compareConfigurations(Map<String, String> fileTopicConfig, Map<String, String> clusterTopicConfig) {
-        Map<String, String> differentConfigurations = new HashMap<>();
 
-        for (Map.Entry<String, String> entry : fileTopicConfig.entrySet()) {
-            String configKey = entry.getKey();
-            String configFileValue = entry.getValue();
-            String clusterConfigValue = clusterTopicConfig.get(configKey);
-
-            if (clusterConfigValue == null || !clusterConfigValue.equals(configFileValue)) {
-                differentConfigurations.put(configKey, configFileValue);
+        // Deletions run last and at their own pace, so they do not hold back the other changes of the batch
+        if (!deletions.isEmpty()) {
+            for (Map.Entry<String, String> entry : topicDeleter.delete(context, deletions, mutationThrottle, retryPolicy.quotaDeadlineNanos()).entrySet()) {
+                topicResults.get(entry.getKey()).add(entry.getValue());
+                completedAt.put(entry.getKey(), System.nanoTime());
             }
         }
 
-        return differentConfigurations;
-    }
-    public void increasePartitions(AdminClient adminClient, String topicName, int newPartitionCount) {
-        NewPartitions newPartitions = NewPartitions.increaseTo(newPartitionCount);
-        Map<String, NewPartitions> topicPartitions = Collections.singletonMap(topicName, newPartitions);
-
-        try {
-            CreatePartitionsResult result = adminClient.createPartitions(topicPartitions);
-            result.values().get(topicName).get();
-            LOGGER.info("Partition count increased to " + newPartitionCount + " successfully.");
-        } catch (InterruptedException | ExecutionException e) {
-            LOGGER.error("Failed to increase partition count: " + e.getMessage());
+        // Only the topics that were changed need to be fetched again
+        Set<String> changedTopics = new HashSet<>(partitionIncreases.keySet());
+        configUpdates.keySet().forEach(resource -> changedTopics.add(resource.name()));
+        snapshot.invalidate(changedTopics);
+
+        Map<String, String> results = new LinkedHashMap<>();
+        List<TopicResult> reportedResults = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : topicResults.entrySet()) {
+            String result = entry.getValue().isEmpty() ? IN_SYNC_RESULT : String.join("; ", entry.getValue());
+            LOGGER.debug("[{}] {} : {}", clusterKey, entry.getKey(), result);
+            results.put(entry.getKey(), result);
+
+            TopicPlan topicPlan = topics.get(entry.getKey());
+            List<String> errors = entry.getValue().stream().filter(message -> message.startsWith("Failed to")).toList();
+            long durationNanos = completedAt.containsKey(entry.getKey()) ? completedAt.get(entry.getKey()) - batchStarted : 0;
+            reportedResults.add(new TopicResult(topicPlan, TopicResult.status(topicPlan, errors),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos), result, errors));
         }
+        listener.accept(reportedResults);
+        return results;
     }
 
-    public void updateTopicConfiguration(AdminClient adminClient, String topicName, Map<String, String> configToUpdate) {
-        ConfigResource topicResource = new ConfigResource(ConfigResource.Type.TOPIC, topicName);
-        ConfigEntry newConfigEntry;
-        List<AlterConfigOp> configOps = new ArrayList<>();
-
-        for (Map.Entry<String, String> entry : configToUpdate.entrySet()) {
-            String configKey = entry.getKey();
-            String configValue = entry.getValue();
-            newConfigEntry = new ConfigEntry(configKey, configValue);
-            configOps.add(new AlterConfigOp(newConfigEntry, AlterConfigOp.OpType.SET));
-        }
+    private static void recordCompletion(Map<String, Long> completedAt, String topicName, KafkaFuture<Void> future) {
+        future.whenComplete((ignored, error) -> completedAt.merge(topicName, System.nanoTime(), Math::max));
+    }
 
-        AlterConfigsResult alterConfigsResult = adminClient.incrementalAlterConfigs(Collections.singletonMap(topicResource, configOps));
+    // Returns null when the future completed successfully, otherwise the failure
+    private Throwable awaitResult(KafkaFuture<Void> future) throws InterruptedException {
         try {
-            alterConfigsResult.all().get();
-            LOGGER.info("Topic configuration updated successfully.");
-        } catch (InterruptedException | ExecutionException e) {
-            LOGGER.error("Failed to update topic configuration: " + e.getMessage());
+            future.get();
+            return null;
+        } catch (ExecutionException e) {
+            LOGGER.debug("Admin operation failed: {}", e.getCause().getMessage());
+            return e.getCause();
         }
     }
 
-    public void closeAdminClient(AdminClient adminClient) {
-        adminClient.close();
-        LOGGER.info("AdminClient closed successfully.");
+    public Map<String, String> compareConfigurations(Map<String, String> fileTopicConfig, Map<String, String> clusterTopicConfig) {
+        return topicPlanner.compareConfigurations(fileTopicConfig, clusterTopicConfig);
     }
 
 }
@@ -1,38 +1,78 @@
 package com.rajitha.kafka.utils;
 
+import com.rajitha.kafka.config.AppConfig;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.PullCommand;
 import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.Properties;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class BitbucketRepositoryCloner {
     private static final Logger LOGGER = LoggerFactory.getLogger(BitbucketRepositoryCloner.class);
+    public static final String SYNC_MODE_FULL = "full";
+    public static final String SYNC_MODE_SPARSE = "sparse";
+    public static final String SYNC_MODE_OBJECTS = "objects";
+    private static final String SYNC_REF_PREFIX = "refs/topic-sync/";
+    public static final int DEFAULT_GIT_CACHE_KEEP_COMMITS = 20;
     private final String repoPath;
     private final String targetDir;
     private final String branch;
+    private final String syncMode;
+    private final String gitCacheDir;
+    private final int gitCacheKeepCommits;
     private final CredentialsProvider credentialsProvider;
 
-    public BitbucketRepositoryCloner(String configFile, String username, String password) throws IOException {
-        Properties properties = new Properties();
-        FileInputStream inputStream = new FileInputStream(configFile);
-        properties.load(inputStream);
-
-        repoPath = properties.getProperty("repoPath");
-        targetDir = properties.getProperty("targetDir");
-        branch = properties.getProperty("branch");
+    public BitbucketRepositoryCloner(AppConfig appConfig, String username, String password) {
+        repoPath = appConfig.repoPath();
+        targetDir = appConfig.targetDir();
+        branch = appConfig.branch();
+        syncMode = appConfig.getProperty("syncMode", SYNC_MODE_FULL);
+        gitCacheDir = appConfig.getProperty("gitCacheDir", targetDir + ".git");
+        gitCacheKeepCommits = appConfig.getInt("gitCacheKeepCommits", DEFAULT_GIT_CACHE_KEEP_COMMITS);
 
         credentialsProvider = new UsernamePasswordCredentialsProvider(username, password);
     }
 
+    public String syncMode() {
+        return syncMode;
+    }
+
+    // Brings the given topic files of the commit into targetDir, using the configured sync mode
+    public void syncRepository(String commitId, Collection<String> paths) throws GitAPIException, IOException {
+        if (SYNC_MODE_SPARSE.equalsIgnoreCase(syncMode)) {
+            syncChangedPaths(commitId, paths);
+        } else {
+            cloneOrSyncRepository();
+        }
+    }
+
     public void cloneOrSyncRepository() throws GitAPIException {
         LOGGER.info("Starting the Repository cloning process");
         Git git;
@@ -41,24 +81,200 @@ public class BitbucketRepositoryCloner {
             git = Git.open(new File(targetDir));
         } catch (IOException e) {
             // Clone the repository if it doesn't exist locally
-            git = Git.cloneRepository()
+            git = timed("clone", () -> Git.cloneRepository()
                     .setURI(repoPath)
                     .setDirectory(new File(targetDir))
                     .setCredentialsProvider(credentialsProvider)
                     .setBranch(branch)
-                    .call();
+                    .call());
         }
 
         // Reset local changes and discard them
         ResetCommand resetCommand = git.reset();
         resetCommand.setMode(ResetCommand.ResetType.HARD);
-        resetCommand.call();
+        timed("reset", resetCommand::call);
 
         // Pull changes from the remote repository
         PullCommand pullCommand = git.pull();
         pullCommand.setCredentialsProvider(credentialsProvider);
-        pullCommand.call();
+        timed("pull", pullCommand::call);
 
         LOGGER.info("Repository successfully cloned or synced.");
     }
+
+    // Fetches only the target commit at depth 1 and writes the requested paths straight from the object database,
+    // so neither the history nor the rest of the working tree is ever transferred or checked out
+    public void syncChangedPaths(String commitId, Collection<String> paths) throws GitAPIException, IOException {
+        LOGGER.info("Starting the sparse sync of {} paths at commit {}", paths.size(), commitId);
+        File directory = new File(targetDir);
+        try (Git git = openOrInit(directory, false)) {
+            Repository repository = git.getRepository();
+            ObjectId commit = fetchCommit(git, commitId);
+
+            try (RevWalk revWalk = new RevWalk(repository)) {
+                RevTree tree = revWalk.parseCommit(commit).getTree();
+                int written = 0;
+                for (String path : paths) {
+                    try (TreeWalk treeWalk = TreeWalk.forPath(repository, path, tree)) {
+                        File file = new File(directory, path);
+                        if (treeWalk == null) {
+                            // A copy left by an earlier run would be loaded as if it were part of this commit
+                            LOGGER.warn("Path {} does not exist at commit {}", path, commitId);
+                            Files.deleteIfExists(file.toPath());
+                            continue;
+                        }
+                        file.getParentFile().mkdirs();
+                        try (OutputStream outputStream = new FileOutputStream(file)) {
+                            repository.open(treeWalk.getObjectId(0)).copyTo(outputStream);
+                        }
+                        written++;
+                    }
+                }
+                LOGGER.info("Repository sparse sync done, {} files materialized.", written);
+            }
+        }
+    }
+
+    // Fetches the commits into a bare cache repository and returns it for reading objects; the caller closes it.
+    // Every commit gets its own ref, so runs for different commits can share the cache at the same time
+    public Repository fetchIntoBareRepository(String... commitIds) throws GitAPIException, IOException {
+        Git git = openOrInit(new File(gitCacheDir), true);
+        try {
+            for (String commitId : commitIds) {
+                fetchCommit(git, commitId);
+            }
+            pruneSyncRefs(git, new HashSet<>(Arrays.asList(commitIds)));
+            return git.getRepository();
+        } catch (GitAPIException | IOException | RuntimeException e) {
+            git.close();
+            throw e;
+        }
+    }
+
+    // The first parent of a merge commit is the target branch before the merge, where the files removed by the merge still exist
+    public String parentCommitId(String commitId) throws GitAPIException, IOException {
+        try (Git git = openOrInit(new File(gitCacheDir), true)) {
+            Repository repository = git.getRepository();
+            ObjectId commit = repository.resolve(commitId);
+            if (commit == null || repository.resolve(commitId + "^1") == null) {
+                timed("fetch", () -> git.fetch()
+                        .setRemote(repoPath)
+                        .setCredentialsProvider(credentialsProvider)
+                        .setRefSpecs(new RefSpec(commitId + ":" + SYNC_REF_PREFIX + commitId))
+                        .setDepth(2)
+                        .call());
+            }
+            keepCommit(repository, commitId);
+            ObjectId parent = repository.resolve(commitId + "^1");
+            if (parent == null) {
+                throw new IOException("Commit " + commitId + " has no parent in " + repoPath);
+            }
+            pruneSyncRefs(git, Set.of(commitId));
+            return parent.name();
+        }
+    }
+
+    // Asks the remote for the commit the branch points to, without fetching anything
+    public String remoteBranchHead() throws GitAPIException, IOException {
+        Ref ref = timed("lsRemote", () -> Git.lsRemoteRepository()
+                .setRemote(repoPath)
+                .setCredentialsProvider(credentialsProvider)
+                .setHeads(true)
+                .callAsMap())
+                .get(Constants.R_HEADS + branch);
+        if (ref == null) {
+            throw new IOException("Branch " + branch + " does not exist in " + repoPath);
+        }
+        return ref.getObjectId().name();
+    }
+
+    private ObjectId fetchCommit(Git git, String commitId) throws GitAPIException, IOException {
+        Repository repository = git.getRepository();
+        ObjectId commit = repository.resolve(commitId);
+        if (commit == null || !repository.getObjectDatabase().has(commit)) {
+            // Commits fetched by earlier runs are reused, only an unknown commit goes over the wire
+            timed("fetch", () -> git.fetch()
+                    .setRemote(repoPath)
+                    .setCredentialsProvider(credentialsProvider)
+                    .setRefSpecs(new RefSpec(commitId + ":" + SYNC_REF_PREFIX + commitId))
+                    .setDepth(1)
+                    .call());
+            commit = repository.resolve(commitId);
+            if (commit == null) {
+                throw new IOException("Commit " + commitId + " could not be fetched from " + repoPath);
+            }
+            keepCommit(repository, commitId);
+        }
+        return commit;
+    }
+
+    // A commit fetched by its id gets no ref from the fetch itself, the ref keeps it reachable until it is pruned
+    private static void keepCommit(Repository repository, String commitId) throws IOException {
+        ObjectId commit = repository.resolve(commitId);
+        if (commit != null && repository.exactRef(SYNC_REF_PREFIX + commitId) == null) {
+            RefUpdate refUpdate = repository.updateRef(SYNC_REF_PREFIX + commitId);
+            refUpdate.setNewObjectId(commit);
+            refUpdate.update();
+        }
+    }
+
+    // Every fetched commit gets a ref and a pack, in daemon mode they would pile up. Only the refs of the newest
+    // gitCacheKeepCommits commits and of the commits in use are kept, and the packs are merged by a gc; the objects of the
+    // other commits are only pruned after the default expiry, so a run still reading an older commit is not cut off
+    private void pruneSyncRefs(Git git, Set<String> inUse) throws GitAPIException, IOException {
+        Repository repository = git.getRepository();
+        List<Ref> refs = new ArrayList<>(repository.getRefDatabase().getRefsByPrefix(SYNC_REF_PREFIX));
+        if (refs.size() <= gitCacheKeepCommits) {
+            return;
+        }
+        Map<Ref, Integer> commitTimes = new HashMap<>();
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            for (Ref ref : refs) {
+                commitTimes.put(ref, revWalk.parseCommit(ref.getObjectId()).getCommitTime());
+            }
+        }
+        refs.sort(Comparator.comparing((Ref ref) -> commitTimes.get(ref)).reversed());
+        List<String> stale = new ArrayList<>();
+        for (Ref ref : refs.subList(gitCacheKeepCommits, refs.size())) {
+            if (!inUse.contains(ref.getName().substring(SYNC_REF_PREFIX.length()))) {
+                stale.add(ref.getName());
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        for (String name : stale) {
+            RefUpdate refUpdate = repository.updateRef(name);
+            refUpdate.setForceUpdate(true);
+            refUpdate.delete();
+        }
+        timed("gc", () -> git.gc().call());
+        LOGGER.info("Removed {} refs of older commits from {}", stale.size(), gitCacheDir);
+    }
+
+    private interface GitOperation<T> {
+        T call() throws GitAPIException;
+    }
+
+    // Records the latency and outcome of a git operation that talks to the remote or rewrites the working tree
+    private <T> T timed(String operation, GitOperation<T> gitOperation) throws GitAPIException {
+        Metrics.Sample sample = Metrics.start();
+        String outcome = "failure";
+        try {
+            T result = gitOperation.call();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop("git_operation", Metrics.tags("operation", operation, "outcome", outcome));
+        }
+    }
+
+    private Git openOrInit(File directory, boolean bare) throws GitAPIException {
+        try {
+            return Git.open(directory);
+        } catch (IOException e) {
+            // A repository without checkout, the files are read one by one from the fetched objects
+            return Git.init().setDirectory(directory).setBare(bare).setInitialBranch(branch).call();
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package com.rajitha.kafka.utils;
+
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Append-only journal of the topic outcomes of a commit; a rerun of the same commit skips the topics that are already done
+public class CheckpointJournal implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointJournal.class);
+    private final Path file;
+    private final String commitId;
+    // Latest status per cluster/env/topic of the commit, later lines win over earlier ones
+    private final Map<String, TopicResult.Status> statuses = new ConcurrentHashMap<>();
+    private final Writer writer;
+    // Set once a write failed; the topics of the later batches are not journaled and a rerun applies them again
+    private boolean disabled;
+
+    public CheckpointJournal(Path file, String commitId) throws IOException {
+        this.file = file;
+        this.commitId = commitId;
+        if (Files.exists(file)) {
+            read(file);
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        // A line cut off by a killed run is terminated, so it does not swallow the first entry of this run
+        if (!endsWithNewline(file)) {
+            writer.write('\n');
+        }
+    }
+
+    // Only the last byte is read, the journal of a long run can be large
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    private void read(Path file) throws IOException {
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JSONObject entry = new JSONObject(line);
+                    if (commitId.equals(entry.getString("commitId"))) {
+                        statuses.put(key(entry.getString("cluster"), entry.getString("env"), entry.getString("topic")),
+                                TopicResult.Status.valueOf(entry.getString("status")));
+                    }
+                } catch (JSONException | IllegalArgumentException e) {
+                    // The last line of a run that was killed while writing may be cut off
+                    LOGGER.warn("Skipping unreadable line {} of journal {}", lineNumber, file);
+                }
+            }
+        }
+    }
+
+    // Applied and in sync topics need no further work; rejected and failed ones are tried again
+    public boolean isDone(ClusterKey cluster, String topicName) {
+        TopicResult.Status status = statuses.get(key(cluster.name(), cluster.env(), topicName));
+        return status == TopicResult.Status.APPLIED || status == TopicResult.Status.IN_SYNC;
+    }
+
+    public int doneCount() {
+        return (int) statuses.values().stream()
+                .filter(status -> status == TopicResult.Status.APPLIED || status == TopicResult.Status.IN_SYNC).count();
+    }
+
+    // Written and flushed per batch, so a crash loses at most the batches that were still running
+    public synchronized void record(List<TopicResult> results) {
+        if (disabled) {
+            return;
+        }
+        try {
+            for (TopicResult result : results) {
+                JSONObject entry = new JSONObject();
+                entry.put("commitId", commitId);
+                entry.put("cluster", result.plan().cluster().name());
+                entry.put("env", result.plan().cluster().env());
+                entry.put("topic", result.plan().topicName());
+                entry.put("status", result.status().name());
+                entry.put("at", Instant.now().toString());
+                if (!result.errors().isEmpty()) {
+                    entry.put("error", String.join("; ", result.errors()));
+                }
+                writer.write(entry.toString());
+                writer.write('\n');
+                statuses.put(key(result.plan().cluster().name(), result.plan().cluster().env(), result.plan().topicName()), result.status());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // Thrown on a batch worker it would fail topics that were applied, the journal is only an optimization of reruns
+            LOGGER.error("Unable to write journal {}, it is disabled for the rest of the run", file, e);
+            disabled = true;
+        }
+    }
+
+    private static String key(String cluster, String env, String topicName) {
+        return cluster + "/" + env + "/" + topicName;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // The failure of a disabled journal was logged already
+            if (!disabled) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.rajitha.kafka.utils;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Finds the topic files changed between two commits locally, the counterpart of PullRequestChangesAnalyzer without any REST call
+public class CommitRangeAnalyzer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommitRangeAnalyzer.class);
+    private final Repository repository;
+    private final String topicsPath;
+
+    public CommitRangeAnalyzer(Repository repository, String topicsPath) {
+        this.repository = repository;
+        this.topicsPath = topicsPath;
+    }
+
+    // Only the two trees are compared, so both commits can be fetched at depth 1 however many merges lie between them.
+    // Every file shows up once with its final change type, a file changed by several commits is reconciled once
+    public Map<String, String> getChanges(String fromCommitId, String toCommitId) throws IOException {
+        Map<String, String> filePathAndChangeTypeMap = new LinkedHashMap<>();
+        try (RevWalk revWalk = new RevWalk(repository); DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setRepository(repository);
+            // A moved topic file is reported as RENAME or COPY with its old path, like Bitbucket does for pull requests
+            diffFormatter.setDetectRenames(true);
+            if (topicsPath != null && !topicsPath.isEmpty()) {
+                diffFormatter.setPathFilter(PathFilter.create(topicsPath));
+            }
+            List<DiffEntry> entries = diffFormatter.scan(revWalk.parseCommit(resolve(fromCommitId)).getTree(),
+                    revWalk.parseCommit(resolve(toCommitId)).getTree());
+            for (DiffEntry entry : entries) {
+                // Same change types as the pull request mode; a deleted file is reported under its old path
+                switch (entry.getChangeType()) {
+                    case ADD, COPY -> putTopicFile(filePathAndChangeTypeMap, entry.getNewPath(), "ADD");
+                    case MODIFY -> putTopicFile(filePathAndChangeTypeMap, entry.getNewPath(), "MODIFY");
+                    case DELETE -> putTopicFile(filePathAndChangeTypeMap, entry.getOldPath(), PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE);
+                    case RENAME -> {
+                        putTopicFile(filePathAndChangeTypeMap, entry.getNewPath(), "RENAME");
+                        putTopicFile(filePathAndChangeTypeMap, entry.getOldPath(), PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE);
+                    }
+                }
+            }
+        }
+        LOGGER.info("Found {} changed topic files between {} and {}", filePathAndChangeTypeMap.size(), fromCommitId, toCommitId);
+        return filePathAndChangeTypeMap;
+    }
+
+    private static void putTopicFile(Map<String, String> filePathAndChangeTypeMap, String filePath, String changeType) {
+        if (filePath.endsWith(".yaml") || filePath.endsWith(".yml")) {
+            filePathAndChangeTypeMap.put(filePath, changeType);
+        }
+    }
+
+    private ObjectId resolve(String commitId) throws IOException {
+        ObjectId commit = repository.resolve(commitId);
+        if (commit == null) {
+            throw new IOException("Commit " + commitId + " is not in repository " + repository.getDirectory());
+        }
+        return commit;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rajitha.kafka.utils;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Reads topic files straight from the git objects of a commit, without any checkout
+public class GitTopicReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitTopicReader.class);
+    private final Repository repository;
+    private final TopicSpecLoader topicSpecLoader;
+
+    public GitTopicReader(Repository repository, TopicSpecLoader topicSpecLoader) {
+        this.repository = repository;
+        this.topicSpecLoader = topicSpecLoader;
+    }
+
+    public TopicSpecLoader.LoadResult load(String commitId, Collection<String> paths) throws IOException {
+        return load(commitId, paths, resolveBlobIds(commitId, paths));
+    }
+
+    // Files whose blob id was seen before come from the spec cache of the loader, only new blobs are opened and parsed
+    public TopicSpecLoader.LoadResult load(String commitId, Collection<String> paths, Map<String, ObjectId> blobIds) {
+        // Each blob is streamed into the yaml parser, a missing path is reported like a missing file
+        return topicSpecLoader.load(paths, path -> {
+            ObjectId blobId = blobIds.get(path);
+            if (blobId == null) {
+                throw new FileNotFoundException(path + " does not exist at commit " + commitId);
+            }
+            return repository.open(blobId).openStream();
+        }, blobIds);
+    }
+
+    // Every yaml file of the commit below the given directory with its blob id, an empty directory means the whole repository
+    public Map<String, ObjectId> listTopicBlobs(String commitId, String directory) throws IOException {
+        ObjectId commit = repository.resolve(commitId);
+        if (commit == null) {
+            throw new IOException("Commit " + commitId + " is not in repository " + repository.getDirectory());
+        }
+        Map<String, ObjectId> blobIds = new LinkedHashMap<>();
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(revWalk.parseCommit(commit).getTree());
+            treeWalk.setRecursive(true);
+            if (directory != null && !directory.isEmpty()) {
+                treeWalk.setFilter(PathFilterGroup.createFromStrings(directory));
+            }
+            while (treeWalk.next()) {
+                String path = treeWalk.getPathString();
+                if (path.endsWith(".yaml") || path.endsWith(".yml")) {
+                    blobIds.put(path, treeWalk.getObjectId(0));
+                }
+            }
+        }
+        return blobIds;
+    }
+
+    // One tree walk over the commit, limited to the requested paths
+    public Map<String, ObjectId> resolveBlobIds(String commitId, Collection<String> paths) throws IOException {
+        ObjectId commit = repository.resolve(commitId);
+        if (commit == null) {
+            throw new IOException("Commit " + commitId + " is not in repository " + repository.getDirectory());
+        }
+        Map<String, ObjectId> blobIds = new HashMap<>();
+        if (paths.isEmpty()) {
+            return blobIds;
+        }
+        try (RevWalk revWalk = new RevWalk(repository); TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(revWalk.parseCommit(commit).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(PathFilterGroup.createFromStrings(paths));
+            while (treeWalk.next()) {
+                blobIds.put(treeWalk.getPathString(), treeWalk.getObjectId(0));
+            }
+        }
+        LOGGER.info("Resolved {} of {} topic files at commit {}", blobIds.size(), paths.size(), commitId);
+        return blobIds;
+    }
+}
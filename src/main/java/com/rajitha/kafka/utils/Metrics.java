@@ -0,0 +1,192 @@
+package com.rajitha.kafka.utils;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process wide counters and latency histograms, keyed by metric name and tags such as cluster, env and operation
+public final class Metrics {
+    // Upper bounds of the latency buckets in milliseconds, the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_MS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+    private static final Map<Series, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<Series, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static Map<String, String> tags(String... keysAndValues) {
+        if (keysAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("tags must be given as key value pairs");
+        }
+        Map<String, String> tags = new TreeMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            tags.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return tags;
+    }
+
+    public static void increment(String name, Map<String, String> tags) {
+        increment(name, tags, 1);
+    }
+
+    public static void increment(String name, Map<String, String> tags, long amount) {
+        COUNTERS.computeIfAbsent(new Series(name, tags), series -> new LongAdder()).add(amount);
+    }
+
+    public static void recordNanos(String name, Map<String, String> tags, long nanos) {
+        HISTOGRAMS.computeIfAbsent(new Series(name, tags), series -> new Histogram()).record(nanos);
+    }
+
+    // Starts a timer; the returned sample records the elapsed time under the given name when stopped
+    public static Sample start() {
+        return new Sample(System.nanoTime());
+    }
+
+    public record Sample(long startNanos) {
+        public long stop(String name, Map<String, String> tags) {
+            long nanos = System.nanoTime() - startNanos;
+            recordNanos(name, tags, nanos);
+            return nanos;
+        }
+    }
+
+    public static void reset() {
+        COUNTERS.clear();
+        HISTOGRAMS.clear();
+    }
+
+    public static JSONObject summary() {
+        JSONArray counters = new JSONArray();
+        for (Series series : sorted(COUNTERS.keySet())) {
+            counters.put(series.toJson().put("value", COUNTERS.get(series).sum()));
+        }
+        JSONArray timers = new JSONArray();
+        for (Series series : sorted(HISTOGRAMS.keySet())) {
+            Histogram histogram = HISTOGRAMS.get(series);
+            timers.put(series.toJson()
+                    .put("count", histogram.count.sum())
+                    .put("totalMs", TimeUnit.NANOSECONDS.toMillis(histogram.totalNanos.sum()))
+                    .put("maxMs", TimeUnit.NANOSECONDS.toMillis(histogram.maxNanos.get()))
+                    .put("p50Ms", histogram.percentileMs(0.5))
+                    .put("p95Ms", histogram.percentileMs(0.95)));
+        }
+        return new JSONObject().put("counters", counters).put("timers", timers);
+    }
+
+    public static void writeSummary(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            summary().write(writer, 2, 0);
+        }
+    }
+
+    // Prometheus text exposition format, timers become histograms in seconds
+    public static String prometheus() {
+        StringBuilder text = new StringBuilder();
+        Set<String> typed = new HashSet<>();
+        for (Series series : sorted(COUNTERS.keySet())) {
+            String name = series.name + "_total";
+            if (typed.add(name)) {
+                text.append("# TYPE ").append(name).append(" counter\n");
+            }
+            text.append(name).append(series.labels(null)).append(' ').append(COUNTERS.get(series).sum()).append('\n');
+        }
+        for (Series series : sorted(HISTOGRAMS.keySet())) {
+            String name = series.name + "_seconds";
+            if (typed.add(name)) {
+                text.append("# TYPE ").append(name).append(" histogram\n");
+            }
+            Histogram histogram = HISTOGRAMS.get(series);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                cumulative += histogram.buckets[i].sum();
+                text.append(name).append("_bucket").append(series.labels(String.valueOf(BUCKET_BOUNDS_MS[i] / 1000.0)))
+                        .append(' ').append(cumulative).append('\n');
+            }
+            text.append(name).append("_bucket").append(series.labels("+Inf")).append(' ').append(histogram.count.sum()).append('\n');
+            text.append(name).append("_sum").append(series.labels(null)).append(' ')
+                    .append(histogram.totalNanos.sum() / 1_000_000_000.0).append('\n');
+            text.append(name).append("_count").append(series.labels(null)).append(' ').append(histogram.count.sum()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static List<Series> sorted(Collection<Series> series) {
+        List<Series> list = new ArrayList<>(series);
+        list.sort(Comparator.comparing(Series::toString));
+        return list;
+    }
+
+    private record Series(String name, Map<String, String> tags) {
+
+        private Series {
+            tags = Collections.unmodifiableMap(new TreeMap<>(tags));
+        }
+
+        private JSONObject toJson() {
+            return new JSONObject().put("name", name).put("tags", new JSONObject(tags));
+        }
+
+        private String labels(String bucketBound) {
+            StringJoiner joiner = new StringJoiner(",", "{", "}");
+            for (Map.Entry<String, String> tag : tags.entrySet()) {
+                joiner.add(tag.getKey() + "=\"" + tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+            }
+            if (bucketBound != null) {
+                joiner.add("le=\"" + bucketBound + "\"");
+            }
+            return joiner.length() == 2 ? "" : joiner.toString();
+        }
+    }
+
+    private static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        // Upper bound of the bucket holding the percentile, the maximum for the unbounded bucket
+        private long percentileMs(double percentile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * total);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                cumulative += buckets[i].sum();
+                if (cumulative >= rank) {
+                    return BUCKET_BOUNDS_MS[i];
+                }
+            }
+            return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+        }
+    }
+}
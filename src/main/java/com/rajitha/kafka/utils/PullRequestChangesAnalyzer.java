@@ -1,112 +1,200 @@
 package com.rajitha.kafka.utils;
 
+import com.rajitha.kafka.config.AppConfig;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class PullRequestChangesAnalyzer {
+    public static final int DEFAULT_PAGE_LIMIT = 500;
+    public static final String CHANGE_TYPE_DELETE = "DELETE";
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
     private final String baseUrl;
     private final String username;
     private final String password;
     private final String projectKey;
     private final String repositorySlug;
+    private final int pageLimit;
+    private final Duration requestTimeout;
+    // One client for all calls, it keeps the connections to the server alive between pages
+    private final HttpClient httpClient;
     private static final Logger LOGGER = LoggerFactory.getLogger(PullRequestChangesAnalyzer.class);
 
+    public PullRequestChangesAnalyzer(AppConfig appConfig, String username, String password) {
+        this(appConfig.bitbucketBaseUrl(), username, password, appConfig.projectKey(), appConfig.repositorySlug(),
+                appConfig.getInt("bitbucketPageLimit", DEFAULT_PAGE_LIMIT),
+                Duration.ofMillis(appConfig.getLong("bitbucketRequestTimeoutMs", DEFAULT_REQUEST_TIMEOUT.toMillis())));
+    }
+
     public PullRequestChangesAnalyzer(String baseUrl,  String username, String password, String projectKey, String repositorySlug) {
+        this(baseUrl, username, password, projectKey, repositorySlug, DEFAULT_PAGE_LIMIT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    public PullRequestChangesAnalyzer(String baseUrl, String username, String password, String projectKey, String repositorySlug,
+                                      int pageLimit, Duration requestTimeout) {
         this.baseUrl = baseUrl;
         this.username = username;
         this.password = password;
         this.projectKey = projectKey;
         this.repositorySlug = repositorySlug;
+        this.pageLimit = pageLimit;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
     }
 
     public Integer getPullRequestId(String commitId) {
+        String url = String.format("%s/rest/api/1.0/projects/%s/repos/%s/commits/%s/pull-requests?limit=1", baseUrl, projectKey, repositorySlug, commitId);
         try {
-            String url = String.format("%s/rest/api/1.0/projects/%s/repos/%s/commits/%s/pull-requests", baseUrl, projectKey, repositorySlug, commitId);
-            HttpURLConnection conn = createConnection(url);
-
-            if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
-                }
-                reader.close();
-
-                JSONObject jsonResponse = new JSONObject(response.toString());
-                JSONArray values = jsonResponse.getJSONArray("values");
-                if (values.length() > 0) {
-                    JSONObject pullRequest = values.getJSONObject(0);
-                    return pullRequest.getInt("id");
-                }
-            } else {
-                LOGGER.error("Failed to get Pull Request ID. HTTP response code: " + conn.getResponseCode());
+            HttpResponse<InputStream> response = send("commitPullRequests", url).get();
+            if (response.statusCode() != 200) {
+                LOGGER.error("Failed to get Pull Request ID. HTTP response code: {}", response.statusCode());
+                response.body().close();
+                return null;
             }
-
-            conn.disconnect();
-        } catch (IOException e) {
-            LOGGER.error("Error while fetching Pull Request ID: " + e.getMessage());
+            JSONArray values = readPage(response).getJSONArray("values");
+            if (values.length() > 0) {
+                return values.getJSONObject(0).getInt("id");
+            }
+        } catch (ExecutionException | IOException e) {
+            LOGGER.error("Error while fetching Pull Request ID: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while fetching Pull Request ID");
         }
         return null;
     }
 
+    // Follows isLastPage/nextPageStart over all pages; null means the change list could not be read completely
     public Map<String, String> getPullRequestChanges(Integer pullRequestId) {
-        Map<String, String> filePathAndChangeTypeMap = new HashMap<>();
+        Map<String, String> filePathAndChangeTypeMap = new LinkedHashMap<>();
         String apiUrl = baseUrl + "/rest/api/1.0/projects/" + projectKey + "/repos/" + repositorySlug
                 + "/pull-requests/" + pullRequestId + "/changes";
 
+        int start = 0;
+        int pages = 0;
+        CompletableFuture<HttpResponse<InputStream>> current = sendPageRequest(apiUrl, start);
+        CompletableFuture<HttpResponse<InputStream>> prefetched = null;
         try {
-            HttpURLConnection conn = createConnection(apiUrl);
-            if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    response.append(line);
+            while (true) {
+                HttpResponse<InputStream> response = current.get();
+                if (response.statusCode() != 200) {
+                    LOGGER.error("Failed to get Pull Request Changes. HTTP response code: {}", response.statusCode());
+                    response.body().close();
+                    discard(prefetched);
+                    return null;
                 }
-                reader.close();
-
-                JSONObject jsonObject = new JSONObject(response.toString());
-                JSONArray values = jsonObject.getJSONArray("values");
+                JSONObject page = readPage(response);
+                pages++;
+                JSONArray values = page.getJSONArray("values");
                 for (int i = 0; i < values.length(); i++) {
                     JSONObject changeObject = values.getJSONObject(i);
                     String gitChangeType = changeObject.getJSONObject("properties").getString("gitChangeType");
 
+                    String filePath = changeObject.getJSONObject("path").getString("toString");
                     // Check for "MODIFY" or "ADD" gitChangeType
                     if ("MODIFY".equals(gitChangeType) || "ADD".equals(gitChangeType)) {
-                        JSONObject pathObject = changeObject.getJSONObject("path");
-                        String filePath = pathObject.getString("toString");
                         filePathAndChangeTypeMap.put(filePath, gitChangeType);
+                    } else if (CHANGE_TYPE_DELETE.equals(gitChangeType)) {
+                        filePathAndChangeTypeMap.put(filePath, CHANGE_TYPE_DELETE);
+                    } else if (("RENAME".equals(gitChangeType) || "MOVE".equals(gitChangeType)) && changeObject.has("srcPath")) {
+                        // The file at the new path is read like an added one, its old path counts as deleted
+                        filePathAndChangeTypeMap.put(filePath, gitChangeType);
+                        filePathAndChangeTypeMap.put(changeObject.getJSONObject("srcPath").getString("toString"), CHANGE_TYPE_DELETE);
                     }
                 }
-            } else {
-                LOGGER.error("Failed to get Pull Request Changes. HTTP response code: " + conn.getResponseCode());
-            }
 
-            conn.disconnect();
-        } catch (IOException e) {
-            LOGGER.error("Error while fetching Pull Request Changes: " + e.getMessage());
+                if (page.optBoolean("isLastPage", true)) {
+                    discard(prefetched);
+                    break;
+                }
+                int nextPageStart = page.getInt("nextPageStart");
+                if (prefetched != null && nextPageStart == start + pageLimit) {
+                    current = prefetched;
+                } else {
+                    discard(prefetched);
+                    current = sendPageRequest(apiUrl, nextPageStart);
+                }
+                start = nextPageStart;
+                // While this page is parsed, the page after it is already on its way
+                prefetched = sendPageRequest(apiUrl, start + pageLimit);
+            }
+        } catch (ExecutionException | IOException e) {
+            LOGGER.error("Error while fetching Pull Request Changes: {}", e.getMessage());
+            discard(prefetched);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while fetching Pull Request Changes");
+            discard(prefetched);
+            return null;
         }
 
+        LOGGER.info("Read {} changed files from {} pages of pull request {}", filePathAndChangeTypeMap.size(), pages, pullRequestId);
         return filePathAndChangeTypeMap;
     }
 
-    private HttpURLConnection createConnection(String url) throws IOException {
-        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("Authorization", "Basic " + getEncodedCredentials());
-        return conn;
+    private CompletableFuture<HttpResponse<InputStream>> sendPageRequest(String apiUrl, int start) {
+        String url = apiUrl + "?start=" + start + "&limit=" + pageLimit;
+        return send("pullRequestChanges", url);
+    }
+
+    // Times every call up to the response headers, tagged by endpoint and status code
+    private CompletableFuture<HttpResponse<InputStream>> send(String endpoint, String url) {
+        Metrics.Sample sample = Metrics.start();
+        return httpClient.sendAsync(createRequest(url), HttpResponse.BodyHandlers.ofInputStream())
+                .whenComplete((response, error) -> {
+                    String status = response != null ? String.valueOf(response.statusCode()) : "error";
+                    sample.stop("http_request", Metrics.tags("endpoint", endpoint, "status", status));
+                });
+    }
+
+    // The page is parsed straight from the response stream, no intermediate copy of the body is kept
+    private JSONObject readPage(HttpResponse<InputStream> response) throws IOException {
+        try (Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+            return new JSONObject(new JSONTokener(reader));
+        }
+    }
+
+    // Closes the body of a prefetched page that is not needed so its connection goes back to the pool
+    private void discard(CompletableFuture<HttpResponse<InputStream>> prefetched) {
+        if (prefetched != null) {
+            prefetched.thenAccept(response -> {
+                try {
+                    response.body().close();
+                } catch (IOException e) {
+                    LOGGER.debug("Error while discarding a prefetched page", e);
+                }
+            });
+        }
+    }
+
+    private HttpRequest createRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Authorization", "Basic " + getEncodedCredentials())
+                .header("Accept", "application/json")
+                .GET()
+                .build();
     }
 
     private String getEncodedCredentials() {
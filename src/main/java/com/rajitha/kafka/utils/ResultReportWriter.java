@@ -0,0 +1,62 @@
+package com.rajitha.kafka.utils;
+
+import com.rajitha.kafka.model.TopicResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Streams one JSON line per topic to the report file as soon as its batch is done; batches of all clusters write concurrently
+public class ResultReportWriter implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultReportWriter.class);
+    private final Path file;
+    private final Writer writer;
+    private long written;
+    // Set once a write failed, the report is incomplete from then on and no longer written
+    private boolean disabled;
+
+    public ResultReportWriter(Path file) throws IOException {
+        this.file = file;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+    }
+
+    // Flushed once per batch rather than per line, so a large run is not slowed down by one write call per topic
+    // Called from the batch workers; a failed write must not fail the topics whose changes were already applied
+    public synchronized void write(List<TopicResult> results) {
+        if (disabled) {
+            return;
+        }
+        try {
+            for (TopicResult result : results) {
+                writer.write(result.toJson().toString());
+                writer.write('\n');
+            }
+            writer.flush();
+            written += results.size();
+        } catch (IOException e) {
+            LOGGER.error("Unable to write report {}, it is disabled after {} topic results", file, written, e);
+            disabled = true;
+        }
+    }
+
+    public synchronized long written() {
+        return written;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // The failure of a disabled report was logged already
+            if (!disabled) {
+                throw e;
+            }
+        }
+    }
+}
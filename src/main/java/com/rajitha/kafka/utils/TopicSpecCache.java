@@ -0,0 +1,252 @@
+package com.rajitha.kafka.utils;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicSpec;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Persistent cache of parsed topic files keyed by their git blob id: a blob never changes, so a file whose content
+// was parsed by an earlier run is looked up instead of parsed again. The file is an append-only list of entries that is
+// memory-mapped on open, only the index of blob ids is read up front and an entry is decoded when it is looked up
+public class TopicSpecCache implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopicSpecCache.class);
+    private static final int MAGIC = 0x54535043;
+    // Bumped whenever parsing or validation of topic files changes, a cache of another version is dropped
+    private static final int FORMAT_VERSION = 4;
+    private static final int HEADER_BYTES = 8;
+
+    private final FileChannel channel;
+    // Only the process holding the lock appends, others use the cache read-only
+    private final FileLock lock;
+    // Mapped again after every flush, so the entries of this run are read from the file like the ones of earlier runs
+    private MappedByteBuffer mapped;
+    private final Map<ObjectId, Integer> offsets = new HashMap<>();
+    // Entries put since the last flush, they are not in the mapped region yet
+    private final Map<ObjectId, CachedFile> added = new HashMap<>();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    // The specs of one file are stored without their path, the same blob may be found at several paths
+    public record CachedFile(List<TopicSpec> specs, List<String> errors) {
+
+        public CachedFile {
+            specs = List.copyOf(specs);
+            errors = List.copyOf(errors);
+        }
+
+        public List<TopicSpec> specs(String sourceFile) {
+            List<TopicSpec> located = new ArrayList<>(specs.size());
+            for (TopicSpec spec : specs) {
+                located.add(new TopicSpec(spec.topicName(), spec.cluster(), spec.partitions(), spec.replicationFactor(), spec.config(), sourceFile,
+                        spec.consumerGroups()));
+            }
+            return located;
+        }
+    }
+
+    public TopicSpecCache(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already opened by this JVM, the cache must be shared instead of opened twice
+            channel.close();
+            throw e;
+        }
+        if (lock == null) {
+            LOGGER.warn("Topic spec cache {} is used by another process, it is only read", file);
+        }
+        long size = channel.size();
+        if (!validHeader(size)) {
+            size = 0;
+            if (lock != null) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip(), 0);
+                size = HEADER_BYTES;
+            }
+        }
+        this.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        long end = index(HEADER_BYTES);
+        if (end < size && lock != null) {
+            // The last entry of a run that was killed while writing is cut off
+            LOGGER.warn("Dropping {} bytes of a cut-off entry at the end of topic spec cache {}", size - end, file);
+            channel.truncate(end);
+        }
+        channel.position(end);
+        LOGGER.info("Topic spec cache {} holds {} parsed files", file, offsets.size());
+    }
+
+    // No file configured means no cache; a cache that cannot be opened is not worth failing the run for
+    public static TopicSpecCache fromConfig(AppConfig appConfig) {
+        String file = appConfig.getProperty("topicSpecCacheFile", "");
+        if (file.isBlank()) {
+            return null;
+        }
+        try {
+            return new TopicSpecCache(Path.of(file));
+        } catch (IOException | OverlappingFileLockException e) {
+            LOGGER.warn("Topic spec cache {} could not be opened, every topic file is parsed", file, e);
+            return null;
+        }
+    }
+
+    private boolean validHeader(long size) throws IOException {
+        if (size < HEADER_BYTES) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION;
+    }
+
+    // Each entry is the raw blob id, the payload length and the payload; returns where the last complete entry ends
+    private long index(int start) {
+        int position = Math.min(start, mapped.limit());
+        byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+        while (position + Constants.OBJECT_ID_LENGTH + Integer.BYTES <= mapped.limit()) {
+            int length = mapped.getInt(position + Constants.OBJECT_ID_LENGTH);
+            int payloadStart = position + Constants.OBJECT_ID_LENGTH + Integer.BYTES;
+            if (length < 0 || payloadStart + (long) length > mapped.limit()) {
+                break;
+            }
+            mapped.get(position, rawId);
+            offsets.put(ObjectId.fromRaw(rawId), payloadStart);
+            position = payloadStart + length;
+        }
+        return position;
+    }
+
+    public synchronized CachedFile get(ObjectId blobId) {
+        CachedFile cachedFile = added.get(blobId);
+        if (cachedFile != null) {
+            return cachedFile;
+        }
+        Integer offset = offsets.get(blobId);
+        if (offset == null) {
+            return null;
+        }
+        byte[] payload = new byte[mapped.getInt(offset - Integer.BYTES)];
+        mapped.get(offset, payload);
+        try {
+            return decode(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Unreadable entry for blob {} in the topic spec cache, the file is parsed again", blobId.name());
+            offsets.remove(blobId);
+            return null;
+        }
+    }
+
+    public synchronized void put(ObjectId blobId, List<TopicSpec> specs, List<String> errors) {
+        // A read-only cache keeps nothing, a long-running process would otherwise hold every file it ever parsed
+        if (lock == null || added.containsKey(blobId) || offsets.containsKey(blobId)) {
+            return;
+        }
+        CachedFile cachedFile = new CachedFile(specs, errors);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try {
+            encode(cachedFile, new DataOutputStream(payload));
+        } catch (IOException e) {
+            // E.g. a value longer than writeUTF allows; the file was parsed fine, it is only not cached
+            LOGGER.warn("Topic file of blob {} cannot be stored in the topic spec cache: {}", blobId.name(), e.toString());
+            return;
+        }
+        byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+        blobId.copyRawTo(rawId, 0);
+        pending.writeBytes(rawId);
+        pending.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(payload.size()).array());
+        pending.writeBytes(payload.toByteArray());
+        added.put(blobId, cachedFile);
+    }
+
+    // New entries are written once per load rather than once per file
+    public synchronized void flush() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        pending.reset();
+        int indexed = mapped.limit();
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.position());
+        index(indexed);
+        added.clear();
+    }
+
+    private static void encode(CachedFile cachedFile, DataOutputStream output) throws IOException {
+        output.writeInt(cachedFile.specs().size());
+        for (TopicSpec spec : cachedFile.specs()) {
+            output.writeUTF(spec.topicName());
+            output.writeUTF(spec.cluster().name());
+            output.writeUTF(spec.cluster().env());
+            output.writeInt(spec.partitions());
+            output.writeInt(spec.replicationFactor());
+            output.writeInt(spec.config().size());
+            for (Map.Entry<String, String> entry : spec.config().entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+            output.writeInt(spec.consumerGroups().size());
+            for (Map.Entry<String, String> entry : spec.consumerGroups().entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeUTF(entry.getValue());
+            }
+        }
+        output.writeInt(cachedFile.errors().size());
+        for (String error : cachedFile.errors()) {
+            output.writeUTF(error);
+        }
+        output.flush();
+    }
+
+    private static CachedFile decode(DataInputStream input) throws IOException {
+        int specCount = input.readInt();
+        List<TopicSpec> specs = new ArrayList<>(specCount);
+        for (int i = 0; i < specCount; i++) {
+            String topicName = input.readUTF();
+            ClusterKey cluster = new ClusterKey(input.readUTF(), input.readUTF());
+            int partitions = input.readInt();
+            int replicationFactor = input.readInt();
+            int configCount = input.readInt();
+            Map<String, String> config = new LinkedHashMap<>();
+            for (int j = 0; j < configCount; j++) {
+                config.put(input.readUTF(), input.readUTF());
+            }
+            int groupCount = input.readInt();
+            Map<String, String> consumerGroups = new LinkedHashMap<>();
+            for (int j = 0; j < groupCount; j++) {
+                consumerGroups.put(input.readUTF(), input.readUTF());
+            }
+            specs.add(new TopicSpec(topicName, cluster, partitions, replicationFactor, config, null, consumerGroups));
+        }
+        int errorCount = input.readInt();
+        List<String> errors = new ArrayList<>(errorCount);
+        for (int i = 0; i < errorCount; i++) {
+            errors.add(input.readUTF());
+        }
+        return new CachedFile(specs, errors);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        if (lock != null) {
+            lock.release();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,149 @@
+package com.rajitha.kafka.utils;
+
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicSpec;
+import org.eclipse.jgit.lib.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parses the changed topic files in parallel into TopicSpecs, collecting validation errors per file
+public class TopicSpecLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TopicSpecLoader.class);
+    // Yaml instances are not thread safe, so every worker thread keeps its own
+    private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(Yaml::new);
+    private final TopicSpecCache cache;
+
+    public interface StreamOpener {
+        InputStream open(String path) throws IOException;
+    }
+
+    public record LoadResult(List<TopicSpec> specs, Map<String, List<String>> errors) {
+
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+
+    public TopicSpecLoader() {
+        this(null);
+    }
+
+    // Files read from git are looked up in the cache by their blob id first, a null cache parses every file
+    public TopicSpecLoader(TopicSpecCache cache) {
+        this.cache = cache;
+    }
+
+    public LoadResult loadFiles(String baseDirectory, Collection<String> paths) {
+        return load(paths, path -> new FileInputStream(new File(baseDirectory, path)));
+    }
+
+    public LoadResult load(Collection<String> paths, StreamOpener opener) {
+        return load(paths, opener, Map.of());
+    }
+
+    public LoadResult load(Collection<String> paths, StreamOpener opener, Map<String, ObjectId> blobIds) {
+        Map<String, List<TopicSpec>> specsByPath = new ConcurrentHashMap<>();
+        Map<String, List<String>> errors = new ConcurrentHashMap<>();
+        paths.parallelStream().forEach(path -> {
+            ObjectId blobId = cache == null ? null : blobIds.get(path);
+            TopicSpecCache.CachedFile cachedFile = blobId == null ? null : cache.get(blobId);
+            if (cachedFile != null) {
+                Metrics.increment("topic_spec_cache_lookups", Metrics.tags("result", "hit"));
+                specsByPath.put(path, cachedFile.specs(path));
+                if (!cachedFile.errors().isEmpty()) {
+                    errors.put(path, cachedFile.errors());
+                }
+                return;
+            }
+            if (blobId != null) {
+                Metrics.increment("topic_spec_cache_lookups", Metrics.tags("result", "miss"));
+            }
+            List<String> fileErrors = new ArrayList<>();
+            try (InputStream inputStream = opener.open(path)) {
+                List<TopicSpec> specs = parse(inputStream, path, fileErrors);
+                specsByPath.put(path, specs);
+                if (blobId != null) {
+                    // Validation errors of a document belong to the content as well; read errors are not cached
+                    cache.put(blobId, specs, fileErrors);
+                }
+            } catch (IOException | RuntimeException e) {
+                fileErrors.add("unable to read or parse file: " + e.getMessage());
+            }
+            if (!fileErrors.isEmpty()) {
+                errors.put(path, fileErrors);
+            }
+        });
+        if (cache != null) {
+            try {
+                cache.flush();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to write the topic spec cache", e);
+            }
+        }
+
+        // Keep the order in which the files were given
+        List<TopicSpec> specs = new ArrayList<>();
+        for (String path : paths) {
+            specs.addAll(specsByPath.getOrDefault(path, Collections.emptyList()));
+        }
+        rejectDuplicates(specs, errors);
+        for (Map.Entry<String, List<String>> entry : errors.entrySet()) {
+            LOGGER.error("Invalid topic file {} : {}", entry.getKey(), entry.getValue());
+        }
+        LOGGER.info("Loaded {} topic specs from {} files, {} files with errors", specs.size(), paths.size(), errors.size());
+        return new LoadResult(specs, new TreeMap<>(errors));
+    }
+
+    // A topic declared more than once would be reconciled from whichever declaration came last, so none of its
+    // declarations is used and every file declaring it gets the error
+    private static void rejectDuplicates(List<TopicSpec> specs, Map<String, List<String>> errors) {
+        Map<ClusterKey, Map<String, List<TopicSpec>>> declarations = new HashMap<>();
+        for (TopicSpec spec : specs) {
+            declarations.computeIfAbsent(spec.cluster(), key -> new HashMap<>()).computeIfAbsent(spec.topicName(), key -> new ArrayList<>()).add(spec);
+        }
+        for (Map<String, List<TopicSpec>> clusterDeclarations : declarations.values()) {
+            for (List<TopicSpec> topicDeclarations : clusterDeclarations.values()) {
+                if (topicDeclarations.size() < 2) {
+                    continue;
+                }
+                Set<String> sourceFiles = new TreeSet<>();
+                topicDeclarations.forEach(spec -> sourceFiles.add(spec.sourceFile()));
+                TopicSpec first = topicDeclarations.get(0);
+                String error = "topic '" + first.topicName() + "' of cluster " + first.cluster() + " is declared "
+                        + topicDeclarations.size() + " times in " + String.join(", ", sourceFiles);
+                for (String sourceFile : sourceFiles) {
+                    List<String> fileErrors = new ArrayList<>(errors.getOrDefault(sourceFile, List.of()));
+                    fileErrors.add(error);
+                    errors.put(sourceFile, fileErrors);
+                }
+            }
+        }
+        specs.removeIf(spec -> declarations.get(spec.cluster()).get(spec.topicName()).size() > 1);
+    }
+
+    // A file may hold several yaml documents separated by '---', each describing one topic
+    public List<TopicSpec> parse(InputStream inputStream, String sourceFile, List<String> errors) {
+        List<TopicSpec> specs = new ArrayList<>();
+        int documentIndex = 0;
+        for (Object document : YAML.get().loadAll(inputStream)) {
+            documentIndex++;
+            try {
+                if (!(document instanceof Map<?, ?> mapping)) {
+                    throw new IllegalArgumentException("document is not a mapping");
+                }
+                specs.add(TopicSpec.fromYaml(mapping, sourceFile));
+            } catch (IllegalArgumentException e) {
+                errors.add("document " + documentIndex + ": " + e.getMessage());
+            }
+        }
+        return specs;
+    }
+}
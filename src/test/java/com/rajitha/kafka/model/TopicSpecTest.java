@@ -0,0 +1,68 @@
+package com.rajitha.kafka.model;
+
+import org.junit.jupiter.api.Test;
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopicSpecTest {
+    private static final String VALID = """
+            topicName: orders
+            spec:
+              target-cluster:
+                name: main
+                env: prod
+              partitions: 12
+              replication-factor: 3
+              config:
+                retention.ms: 604800000
+                cleanup.policy: [delete, compact]
+                unclean.leader.election.enable: false
+              consumer-groups:
+                - groupId: orders-service
+                  offset: EARLIEST
+                - groupId: audit
+                  offset: latest
+            """;
+
+    @Test
+    void parsesATopicDocument() {
+        TopicSpec spec = TopicSpec.fromYaml(load(VALID), "topics/orders.yaml");
+
+        assertEquals("orders", spec.topicName());
+        assertEquals(new ClusterKey("main", "prod"), spec.cluster());
+        assertEquals(12, spec.partitions());
+        assertEquals(3, spec.replicationFactor());
+        assertEquals(Map.of("retention.ms", "604800000", "cleanup.policy", "delete,compact", "unclean.leader.election.enable", "false"),
+                spec.config());
+        assertEquals(List.of("retention.ms", "cleanup.policy", "unclean.leader.election.enable"), List.copyOf(spec.config().keySet()));
+        assertEquals(Map.of("orders-service", "earliest", "audit", "latest"), spec.consumerGroups());
+        assertEquals("topics/orders.yaml", spec.sourceFile());
+    }
+
+    @Test
+    void rejectsInvalidDocuments() {
+        assertInvalid("document is empty", null);
+        assertInvalid("'topicName' is missing or not a string", VALID.replace("topicName: orders", "topicName: ''"));
+        assertInvalid("'target-cluster' is missing or not a mapping", VALID.replace("target-cluster:", "other:"));
+        assertInvalid("'partitions' is missing or not a positive integer", VALID.replace("partitions: 12", "partitions: 0"));
+        assertInvalid("'replication-factor' is missing or not a positive integer", VALID.replace("replication-factor: 3", "replication-factor: three"));
+        assertInvalid("config 'retention.ms' has no value", VALID.replace("retention.ms: 604800000", "retention.ms:"));
+        assertInvalid("offset of consumer group 'audit' must be 'earliest' or 'latest'", VALID.replace("offset: latest", "offset: newest"));
+        assertInvalid("consumer group 'orders-service' is declared twice", VALID.replace("groupId: audit", "groupId: orders-service"));
+    }
+
+    private static void assertInvalid(String message, String yaml) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TopicSpec.fromYaml(yaml == null ? null : load(yaml), "topics/orders.yaml"));
+        assertEquals(message, e.getMessage());
+    }
+
+    private static Map<String, Object> load(String yaml) {
+        return new Yaml().load(yaml);
+    }
+}
@@ -0,0 +1,120 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.kafka.AdminRequestLimiter;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.kafka.ClusterSnapshot;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicPlan;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeLogDirsOptions;
+import org.apache.kafka.clients.admin.DescribeLogDirsResult;
+import org.apache.kafka.clients.admin.LogDirDescription;
+import org.apache.kafka.clients.admin.MockAdminClient;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CapacityPreflightTest {
+    private static final ClusterKey CLUSTER = new ClusterKey("test", "dev");
+    private static final List<Node> BROKERS = List.of(new Node(0, "h0", 9092), new Node(1, "h1", 9092), new Node(2, "h2", 9092));
+
+    @Test
+    void disabledPreflightReturnsThePlans() throws Exception {
+        Map<String, TopicPlan> plans = Map.of("orders", create("orders", 100, 3));
+
+        assertSame(plans, new CapacityPreflight().check(context(new MockAdminClient(BROKERS, BROKERS.get(0))), plans));
+    }
+
+    @Test
+    void reservationsOfEarlierPlansCountAgainstThePartitionLimit() throws Exception {
+        MockAdminClient adminClient = new MockAdminClient(BROKERS, BROKERS.get(0));
+        // Every broker already holds two replicas
+        adminClient.addTopic(false, "existing", List.of(partition(0), partition(1)), Map.of());
+        Map<String, TopicPlan> plans = new LinkedHashMap<>();
+        plans.put("fits", create("fits", 3, 1));
+        plans.put("too-many", create("too-many", 1, 1));
+
+        Map<String, TopicPlan> checked = new CapacityPreflight(3, 0, 0).check(context(adminClient), plans);
+
+        assertSame(plans.get("fits"), checked.get("fits"));
+        TopicPlan rejected = checked.get("too-many");
+        assertEquals(TopicPlan.Action.NONE, rejected.action());
+        assertTrue(rejected.rejections().get(0).contains("the limit is 3"), rejected.rejections().toString());
+    }
+
+    @Test
+    void rejectedUpdateKeepsItsConfigChanges() throws Exception {
+        MockAdminClient adminClient = new MockAdminClient(BROKERS, BROKERS.get(0));
+        adminClient.addTopic(false, "orders", List.of(partition(0), partition(1)), Map.of());
+        TopicPlan plan = new TopicPlan(CLUSTER, "orders", TopicPlan.Action.UPDATE, 4, 3, 2, 3, Map.of("retention.ms", "1000"),
+                List.of(), List.of(), Map.of("orders-service", "earliest"));
+
+        TopicPlan checked = new CapacityPreflight(3, 0, 0).check(context(adminClient), Map.of("orders", plan)).get("orders");
+
+        assertEquals(TopicPlan.Action.UPDATE, checked.action());
+        assertEquals(2, checked.partitions());
+        assertEquals(Map.of("retention.ms", "1000"), checked.configSets());
+        assertEquals(Map.of("orders-service", "earliest"), checked.consumerGroups());
+        assertEquals(1, checked.rejections().size());
+    }
+
+    @Test
+    void newReplicasCountAgainstTheDiskLimit() throws Exception {
+        // Every broker has a 1000 byte volume with 700 bytes used
+        MockAdminClient adminClient = new MockAdminClient(BROKERS, BROKERS.get(0)) {
+            @Override
+            public DescribeLogDirsResult describeLogDirs(Collection<Integer> brokers, DescribeLogDirsOptions options) {
+                Map<Integer, KafkaFuture<Map<String, LogDirDescription>>> futures = new HashMap<>();
+                brokers.forEach(id -> futures.put(id, KafkaFuture.completedFuture(
+                        Map.of("/data", new LogDirDescription(null, Map.of(), 1000, 300)))));
+                return logDirsResult(futures);
+            }
+        };
+        // One new replica per broker: 100 bytes reach exactly 80%, the next 150 bytes would go over
+        Map<String, TopicPlan> plans = new LinkedHashMap<>();
+        plans.put("small", withRetention(create("small", 3, 1), "100"));
+        plans.put("large", withRetention(create("large", 3, 1), "150"));
+
+        Map<String, TopicPlan> checked = new CapacityPreflight(0, 80, 0).check(context(adminClient), plans);
+
+        assertTrue(checked.get("small").rejections().isEmpty());
+        assertTrue(checked.get("large").rejections().get(0).contains("of its disk"), checked.get("large").rejections().toString());
+    }
+
+    private static ClusterContext context(AdminClient adminClient) {
+        AdminRequestLimiter limiter = new AdminRequestLimiter(CLUSTER, 4);
+        return new ClusterContext(CLUSTER, adminClient, limiter, new ClusterSnapshot(adminClient, limiter));
+    }
+
+    private static TopicPlan create(String topicName, int partitions, int replicationFactor) {
+        return new TopicPlan(CLUSTER, topicName, TopicPlan.Action.CREATE, partitions, replicationFactor, 0, 0, Map.of(), List.of(), List.of());
+    }
+
+    private static TopicPlan withRetention(TopicPlan plan, String retentionBytes) {
+        return new TopicPlan(plan.cluster(), plan.topicName(), plan.action(), plan.partitions(), plan.replicationFactor(),
+                plan.currentPartitions(), plan.currentReplicationFactor(), Map.of("retention.bytes", retentionBytes), List.of(), List.of());
+    }
+
+    private static TopicPartitionInfo partition(int partition) {
+        return new TopicPartitionInfo(partition, BROKERS.get(partition % BROKERS.size()), BROKERS, BROKERS);
+    }
+
+    // The result is only built by the admin client itself
+    private static DescribeLogDirsResult logDirsResult(Map<Integer, KafkaFuture<Map<String, LogDirDescription>>> futures) {
+        try {
+            Constructor<DescribeLogDirsResult> constructor = DescribeLogDirsResult.class.getDeclaredConstructor(Map.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(futures);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.rajitha.kafka.service;
+
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigDifferTest {
+
+    @Test
+    void normalizesNumbersFlagsAndLists() {
+        assertTrue(ConfigDiffer.sameValue("604800000", "6.048E8"));
+        assertTrue(ConfigDiffer.sameValue("1_000", "1000"));
+        assertTrue(ConfigDiffer.sameValue("0.0", "0"));
+        assertTrue(ConfigDiffer.sameValue("TRUE", "true"));
+        assertTrue(ConfigDiffer.sameValue("delete, compact", "delete,compact"));
+        assertFalse(ConfigDiffer.sameValue("delete", "compact"));
+        assertFalse(ConfigDiffer.sameValue("delete,compact", "compact,delete"));
+    }
+
+    @Test
+    void yamlSequenceEqualsCommaSeparatedList() {
+        assertTrue(ConfigDiffer.sameValue("[delete, compact]", "delete,compact"));
+        assertTrue(ConfigDiffer.sameValue("[delete]", "delete"));
+        assertTrue(ConfigDiffer.sameValue("[0:1, 1:2]", "0:1,1:2"));
+        assertTrue(ConfigDiffer.sameValue("[]", ""));
+    }
+
+    @Test
+    void effectiveValueIsNotSetAgain() {
+        Config clusterConfig = new Config(List.of(
+                entry("retention.ms", "604800000", ConfigEntry.ConfigSource.DEFAULT_CONFIG),
+                entry("cleanup.policy", "delete,compact", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG),
+                entry("min.insync.replicas", "1", ConfigEntry.ConfigSource.STATIC_BROKER_CONFIG)));
+
+        ConfigDiffer.ConfigChanges changes = new ConfigDiffer(false).diff(Map.of(
+                "retention.ms", "604800000",
+                "cleanup.policy", "[delete, compact]",
+                "min.insync.replicas", "2"), clusterConfig);
+
+        assertEquals(Map.of("min.insync.replicas", "2"), changes.sets());
+        assertTrue(changes.deletes().isEmpty());
+    }
+
+    @Test
+    void removedOverridesAreOnlyDeletedWhenEnabled() {
+        Config clusterConfig = new Config(List.of(
+                entry("retention.ms", "86400000", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG),
+                entry("segment.bytes", "1073741824", ConfigEntry.ConfigSource.DEFAULT_CONFIG)));
+
+        assertTrue(new ConfigDiffer(false).diff(Map.of(), clusterConfig).isEmpty());
+        assertEquals(List.of("retention.ms"), new ConfigDiffer(true).diff(Map.of(), clusterConfig).deletes());
+    }
+
+    @Test
+    void overrideEqualToInheritedSynonymIsKept() {
+        ConfigEntry retention = new ConfigEntry("retention.ms", "604800000", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG,
+                false, false, List.of(
+                synonym("retention.ms", "604800000", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG),
+                synonym("log.retention.ms", "6.048E8", ConfigEntry.ConfigSource.STATIC_BROKER_CONFIG)),
+                ConfigEntry.ConfigType.LONG, null);
+        ConfigEntry compression = new ConfigEntry("compression.type", "lz4", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG,
+                false, false, List.of(
+                synonym("compression.type", "lz4", ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG),
+                synonym("compression.type", "producer", ConfigEntry.ConfigSource.DEFAULT_CONFIG)),
+                ConfigEntry.ConfigType.STRING, null);
+
+        ConfigDiffer.ConfigChanges changes = new ConfigDiffer(true).diff(Map.of(), new Config(List.of(retention, compression)));
+
+        assertEquals(List.of("compression.type"), changes.deletes());
+    }
+
+    // The admin client only builds synonyms from describeConfigs responses
+    private static ConfigEntry.ConfigSynonym synonym(String name, String value, ConfigEntry.ConfigSource source) {
+        try {
+            Constructor<ConfigEntry.ConfigSynonym> constructor = ConfigEntry.ConfigSynonym.class
+                    .getDeclaredConstructor(String.class, String.class, ConfigEntry.ConfigSource.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(name, value, source);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ConfigEntry entry(String name, String value, ConfigEntry.ConfigSource source) {
+        return new ConfigEntry(name, value, source, false, false, List.of(), ConfigEntry.ConfigType.STRING, null);
+    }
+}
@@ -0,0 +1,100 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.kafka.AdminRequestLimiter;
+import com.rajitha.kafka.kafka.ClusterContext;
+import com.rajitha.kafka.model.ClusterKey;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.ThrottlingQuotaExceededException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutationThrottleTest {
+    private static final ClusterKey CLUSTER = new ClusterKey("main", "prod");
+    private static final ClusterContext CONTEXT = new ClusterContext(CLUSTER, null, new AdminRequestLimiter(CLUSTER, 4), null);
+
+    @Test
+    void quotaViolationHalvesTheSizeAndFullRequestsGrowItBack() throws Exception {
+        MutationThrottle throttle = new MutationThrottle(10, 2);
+        List<Integer> sizes = new ArrayList<>();
+
+        Map<String, KafkaFuture<Void>> futures = throttle.send(CONTEXT, "createTopics", items(25), chunk -> {
+            sizes.add(chunk.size());
+            // Only the first request exceeds the quota
+            return results(chunk, sizes.size() == 1 ? 0 : -1);
+        });
+
+        assertEquals(List.of(10, 5, 6, 4), sizes);
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> futures.get("t0").get());
+        assertInstanceOf(ThrottlingQuotaExceededException.class, rejected.getCause());
+        futures.get("t10").get();
+    }
+
+    @Test
+    void sizeIsLearnedPerClusterAcrossCalls() throws Exception {
+        MutationThrottle throttle = new MutationThrottle(8, 1);
+        List<Integer> sizes = new ArrayList<>();
+        throttle.send(CONTEXT, "createTopics", items(8), chunk -> {
+            sizes.add(chunk.size());
+            return results(chunk, 0);
+        });
+        ClusterKey other = new ClusterKey("main", "dev");
+        ClusterContext otherContext = new ClusterContext(other, null, new AdminRequestLimiter(other, 4), null);
+
+        throttle.send(CONTEXT, "createTopics", items(8), chunk -> {
+            sizes.add(chunk.size());
+            return results(chunk, -1);
+        });
+        throttle.send(otherContext, "createTopics", items(8), chunk -> {
+            sizes.add(chunk.size());
+            return results(chunk, -1);
+        });
+
+        assertEquals(List.of(8, 4, 4, 8), sizes);
+    }
+
+    @Test
+    void mutationsWaitForTheThrottleTime() throws Exception {
+        MutationThrottle throttle = new MutationThrottle(2, 1);
+        throttle.send(CONTEXT, "deleteTopics", items(2), chunk -> results(chunk, 300));
+        long rejectedAt = System.nanoTime();
+        List<Long> sentAt = new ArrayList<>();
+
+        throttle.send(CONTEXT, "deleteTopics", items(2), chunk -> {
+            sentAt.add(System.nanoTime());
+            return results(chunk, -1);
+        });
+
+        assertTrue(sentAt.get(0) - rejectedAt >= 250_000_000L, "request sent after " + (sentAt.get(0) - rejectedAt) + " ns");
+    }
+
+    private static Map<String, Integer> items(int count) {
+        Map<String, Integer> items = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            items.put("t" + i, i);
+        }
+        return items;
+    }
+
+    // A throttle time of -1 lets the request through, otherwise every item of it is rejected by the quota
+    private static Map<String, KafkaFuture<Void>> results(Map<String, Integer> chunk, int throttleTimeMs) {
+        Map<String, KafkaFuture<Void>> futures = new LinkedHashMap<>();
+        for (String topicName : chunk.keySet()) {
+            KafkaFutureImpl<Void> future = new KafkaFutureImpl<>();
+            if (throttleTimeMs < 0) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new ThrottlingQuotaExceededException(throttleTimeMs, "quota exceeded"));
+            }
+            futures.put(topicName, future);
+        }
+        return futures;
+    }
+}
@@ -0,0 +1,81 @@
+package com.rajitha.kafka.service;
+
+import com.rajitha.kafka.kafka.AdminRequestLimiter;
+import com.rajitha.kafka.kafka.BrokerLoad;
+import com.rajitha.kafka.model.ClusterKey;
+import org.apache.kafka.clients.admin.MockAdminClient;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReplicaPlacementTest {
+    private static final ClusterKey CLUSTER = new ClusterKey("test", "dev");
+
+    @Test
+    void newReplicasGoToUnusedRacksThenLeastLoadedBrokers() throws Exception {
+        List<Node> brokers = List.of(new Node(0, "h0", 9092, "a"), new Node(1, "h1", 9092, "a"), new Node(2, "h2", 9092, "b"),
+                new Node(3, "h3", 9092, "b"), new Node(4, "h4", 9092, "c"));
+        MockAdminClient adminClient = new MockAdminClient(brokers, brokers.get(0));
+        // Topics outside the run still count: broker 2 holds two replicas and broker 4 three
+        addTopic(adminClient, brokers, "other", List.of(2), List.of(2), List.of(4), List.of(4), List.of(4));
+
+        ReplicaPlacement placement = placement(adminClient, brokers);
+
+        assertEquals(List.of(0, 3, 4), placement.assign(new TopicPartition("orders", 0), List.of(0), 3));
+    }
+
+    @Test
+    void placementsAreRecordedInTheLoad() throws Exception {
+        List<Node> brokers = List.of(new Node(0, "h0", 9092), new Node(1, "h1", 9092), new Node(2, "h2", 9092));
+        MockAdminClient adminClient = new MockAdminClient(brokers, brokers.get(0));
+        ReplicaPlacement placement = placement(adminClient, brokers);
+
+        assertEquals(List.of(0, 1), placement.assign(new TopicPartition("orders", 0), List.of(0), 2));
+        assertEquals(List.of(0, 2), placement.assign(new TopicPartition("orders", 1), List.of(0), 2));
+        // Broker 0 only holds the current replicas passed in, which are not in the mock cluster
+        assertEquals(List.of(1, 0), placement.assign(new TopicPartition("orders", 2), List.of(1), 2));
+    }
+
+    @Test
+    void shrinkingKeepsThePreferredLeaderAndDropsGoneBrokersFirst() throws Exception {
+        List<Node> brokers = List.of(new Node(0, "h0", 9092), new Node(1, "h1", 9092), new Node(2, "h2", 9092));
+        MockAdminClient adminClient = new MockAdminClient(brokers, brokers.get(0));
+        ReplicaPlacement placement = placement(adminClient, brokers);
+
+        assertEquals(List.of(2, 1), placement.assign(new TopicPartition("orders", 0), List.of(2, 9, 1), 2));
+        assertEquals(List.of(2), placement.assign(new TopicPartition("orders", 1), List.of(2, 0, 1), 1));
+    }
+
+    @Test
+    void replicationFactorAboveBrokerCountIsRejected() throws Exception {
+        List<Node> brokers = List.of(new Node(0, "h0", 9092), new Node(1, "h1", 9092));
+        MockAdminClient adminClient = new MockAdminClient(brokers, brokers.get(0));
+        ReplicaPlacement placement = placement(adminClient, brokers);
+
+        assertThrows(IllegalArgumentException.class, () -> placement.assign(new TopicPartition("orders", 0), List.of(0), 3));
+    }
+
+    private static ReplicaPlacement placement(MockAdminClient adminClient, List<Node> brokers) throws Exception {
+        List<String> topicNames = new ArrayList<>(adminClient.listTopics().names().get());
+        BrokerLoad brokerLoad = BrokerLoad.load(adminClient, new AdminRequestLimiter(CLUSTER, 4), brokers, topicNames);
+        return new ReplicaPlacement(brokers, brokerLoad);
+    }
+
+    @SafeVarargs
+    private static void addTopic(MockAdminClient adminClient, List<Node> brokers, String topicName, List<Integer>... replicasPerPartition) {
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (List<Integer> replicaIds : replicasPerPartition) {
+            List<Node> replicas = replicaIds.stream().map(brokers::get).toList();
+            partitions.add(new TopicPartitionInfo(partitions.size(), replicas.get(0), replicas, replicas));
+        }
+        adminClient.addTopic(false, topicName, partitions, Map.of());
+    }
+}
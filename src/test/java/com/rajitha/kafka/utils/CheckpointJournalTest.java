@@ -0,0 +1,86 @@
+package com.rajitha.kafka.utils;
+
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicPlan;
+import com.rajitha.kafka.model.TopicResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointJournalTest {
+    private static final ClusterKey CLUSTER = new ClusterKey("main", "prod");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rerunOfTheSameCommitSkipsDoneTopics() throws Exception {
+        Path file = directory.resolve("journal.jsonl");
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            journal.record(List.of(result("created", TopicResult.Status.APPLIED), result("unchanged", TopicResult.Status.IN_SYNC),
+                    result("broken", TopicResult.Status.FAILED), result("too-big", TopicResult.Status.REJECTED)));
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            assertEquals(2, journal.doneCount());
+            assertTrue(journal.isDone(CLUSTER, "created"));
+            assertTrue(journal.isDone(CLUSTER, "unchanged"));
+            assertFalse(journal.isDone(CLUSTER, "broken"));
+            assertFalse(journal.isDone(CLUSTER, "too-big"));
+            assertFalse(journal.isDone(new ClusterKey("main", "dev"), "created"));
+        }
+        try (CheckpointJournal journal = new CheckpointJournal(file, "def456")) {
+            assertEquals(0, journal.doneCount());
+        }
+    }
+
+    @Test
+    void laterEntriesWin() throws Exception {
+        Path file = directory.resolve("journal.jsonl");
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            journal.record(List.of(result("orders", TopicResult.Status.FAILED)));
+        }
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            journal.record(List.of(result("orders", TopicResult.Status.APPLIED)));
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            assertTrue(journal.isDone(CLUSTER, "orders"));
+        }
+    }
+
+    @Test
+    void cutOffLineOfAKilledRunIsSkipped() throws Exception {
+        Path file = directory.resolve("journal.jsonl");
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            journal.record(List.of(result("orders", TopicResult.Status.APPLIED)));
+        }
+        Files.writeString(file, "{\"commitId\":\"abc123\",\"cluster\":\"main\",\"env\":\"pr", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            journal.record(List.of(result("payments", TopicResult.Status.APPLIED)));
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(file, "abc123")) {
+            assertTrue(journal.isDone(CLUSTER, "orders"));
+            assertTrue(journal.isDone(CLUSTER, "payments"));
+            assertEquals(2, journal.doneCount());
+        }
+    }
+
+    private static TopicResult result(String topicName, TopicResult.Status status) {
+        TopicPlan plan = new TopicPlan(CLUSTER, topicName, TopicPlan.Action.CREATE, 3, 3, 0, 0, Map.of(), List.of(), List.of());
+        List<String> errors = status == TopicResult.Status.FAILED ? List.of("Failed to create topic") : List.of();
+        return new TopicResult(plan, status, 5, "done", errors);
+    }
+}
@@ -0,0 +1,64 @@
+package com.rajitha.kafka.utils;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CommitRangeAnalyzerTest {
+    private static final String TOPIC = """
+            topicName: orders
+            spec:
+              target-cluster:
+                name: main
+                env: prod
+              partitions: 12
+              replication-factor: 3
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void renamedTopicFileIsReportedWithItsOldPath() throws Exception {
+        try (Git git = Git.init().setDirectory(directory.toFile()).call()) {
+            write("topics/orders.yaml", TOPIC);
+            write("topics/payments.yaml", TOPIC.replace("orders", "payments"));
+            write("topics/audit.yaml", TOPIC.replace("orders", "audit"));
+            RevCommit from = commit(git);
+
+            Files.move(directory.resolve("topics/orders.yaml"), directory.resolve("topics/orders-v2.yaml"));
+            write("topics/payments.yaml", TOPIC.replace("orders", "payments").replace("partitions: 12", "partitions: 24"));
+            Files.delete(directory.resolve("topics/audit.yaml"));
+            write("README.md", "topics");
+            RevCommit to = commit(git);
+
+            Map<String, String> changes = new CommitRangeAnalyzer(git.getRepository(), "topics").getChanges(from.name(), to.name());
+
+            assertEquals(Map.of(
+                    "topics/orders-v2.yaml", "RENAME",
+                    "topics/orders.yaml", PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE,
+                    "topics/payments.yaml", "MODIFY",
+                    "topics/audit.yaml", PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE), changes);
+        }
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = directory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+    }
+
+    private static RevCommit commit(Git git) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().addFilepattern(".").setUpdate(true).call();
+        return git.commit().setMessage("change").setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").setSign(false).call();
+    }
+}
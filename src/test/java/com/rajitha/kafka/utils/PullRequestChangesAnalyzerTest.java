@@ -0,0 +1,140 @@
+package com.rajitha.kafka.utils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PullRequestChangesAnalyzerTest {
+    private static final String CHANGES_PATH = "/rest/api/1.0/projects/PRJ/repos/topics/pull-requests/7/changes";
+
+    private HttpServer server;
+    // Every change the stub serves, split into pages of pageLimit entries
+    private final List<JSONObject> changes = new ArrayList<>();
+    // Prefetched pages may still be requested while the test checks the starts
+    private final List<Integer> requestedStarts = new CopyOnWriteArrayList<>();
+    private int failingStart = -1;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(CHANGES_PATH, this::servePage);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void readsAllPages() {
+        for (int i = 0; i < 7; i++) {
+            changes.add(change("MODIFY", "topics/t" + i + ".yaml", null));
+        }
+
+        Map<String, String> result = analyzer(3).getPullRequestChanges(7);
+
+        assertEquals(7, result.size());
+        for (int i = 0; i < 7; i++) {
+            assertEquals("MODIFY", result.get("topics/t" + i + ".yaml"));
+        }
+        assertTrue(requestedStarts.containsAll(List.of(0, 3, 6)), "requested " + requestedStarts);
+    }
+
+    @Test
+    void mapsChangeTypesAcrossPages() {
+        changes.add(change("ADD", "topics/added.yaml", null));
+        changes.add(change("DELETE", "topics/deleted.yaml", null));
+        changes.add(change("RENAME", "topics/renamed.yaml", "topics/old-name.yaml"));
+        changes.add(change("MOVE", "other/moved.yaml", "topics/moved.yaml"));
+        changes.add(change("COPY", "topics/copy.yaml", "topics/original.yaml"));
+
+        Map<String, String> result = analyzer(2).getPullRequestChanges(7);
+
+        assertEquals(Map.of(
+                "topics/added.yaml", "ADD",
+                "topics/deleted.yaml", PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE,
+                "topics/renamed.yaml", "RENAME",
+                "topics/old-name.yaml", PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE,
+                "other/moved.yaml", "MOVE",
+                "topics/moved.yaml", PullRequestChangesAnalyzer.CHANGE_TYPE_DELETE), result);
+    }
+
+    @Test
+    void failedPageFailsTheWholeList() {
+        for (int i = 0; i < 6; i++) {
+            changes.add(change("MODIFY", "topics/t" + i + ".yaml", null));
+        }
+        failingStart = 4;
+
+        assertNull(analyzer(2).getPullRequestChanges(7));
+    }
+
+    private PullRequestChangesAnalyzer analyzer(int pageLimit) {
+        return new PullRequestChangesAnalyzer("http://localhost:" + server.getAddress().getPort(), "user", "password",
+                "PRJ", "topics", pageLimit, Duration.ofSeconds(5));
+    }
+
+    private static JSONObject change(String type, String path, String srcPath) {
+        JSONObject change = new JSONObject()
+                .put("properties", new JSONObject().put("gitChangeType", type))
+                .put("path", new JSONObject().put("toString", path));
+        if (srcPath != null) {
+            change.put("srcPath", new JSONObject().put("toString", srcPath));
+        }
+        return change;
+    }
+
+    // Serves the slice of changes asked for by start and limit, like the Bitbucket paged API
+    private void servePage(HttpExchange exchange) throws IOException {
+        int start = 0;
+        int limit = 25;
+        for (String parameter : exchange.getRequestURI().getQuery().split("&")) {
+            String[] pair = parameter.split("=");
+            if ("start".equals(pair[0])) {
+                start = Integer.parseInt(pair[1]);
+            } else if ("limit".equals(pair[0])) {
+                limit = Integer.parseInt(pair[1]);
+            }
+        }
+        requestedStarts.add(start);
+        if (start == failingStart) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+        int end = Math.min(start + limit, changes.size());
+        JSONObject page = new JSONObject()
+                .put("start", start)
+                .put("size", Math.max(0, end - start))
+                .put("values", new JSONArray(start < end ? changes.subList(start, end) : List.of()))
+                .put("isLastPage", end >= changes.size());
+        if (end < changes.size()) {
+            page.put("nextPageStart", end);
+        }
+        byte[] body = page.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+}
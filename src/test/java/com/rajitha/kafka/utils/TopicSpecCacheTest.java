@@ -0,0 +1,121 @@
+package com.rajitha.kafka.utils;
+
+import com.rajitha.kafka.config.AppConfig;
+import com.rajitha.kafka.model.ClusterKey;
+import com.rajitha.kafka.model.TopicSpec;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TopicSpecCacheTest {
+    private static final ObjectId BLOB = ObjectId.fromString("0123456789abcdef0123456789abcdef01234567");
+    private static final ObjectId BROKEN_BLOB = ObjectId.fromString("89abcdef0123456789abcdef0123456789abcdef");
+    private static final TopicSpec SPEC = new TopicSpec("orders", new ClusterKey("main", "prod"), 12, 3,
+            Map.of("retention.ms", "604800000", "cleanup.policy", "delete,compact"), "topics/orders.yaml", Map.of("orders-service", "earliest"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesSurviveAReopen() throws Exception {
+        Path file = directory.resolve("specs.cache");
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            cache.put(BLOB, List.of(SPEC), List.of());
+            cache.put(BROKEN_BLOB, List.of(), List.of("'partitions' must be a positive integer"));
+        }
+
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            TopicSpecCache.CachedFile cached = cache.get(BLOB);
+            assertEquals(List.of(SPEC), cached.specs("topics/orders.yaml"));
+            assertEquals("topics/moved.yaml", cached.specs("topics/moved.yaml").get(0).sourceFile());
+            assertEquals(List.of("'partitions' must be a positive integer"), cache.get(BROKEN_BLOB).errors());
+            assertNull(cache.get(ObjectId.zeroId()));
+        }
+    }
+
+    @Test
+    void cacheOfAnotherVersionIsDropped() throws Exception {
+        Path file = directory.resolve("specs.cache");
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            cache.put(BLOB, List.of(SPEC), List.of());
+        }
+        // Same magic, older format version
+        byte[] content = Files.readAllBytes(file);
+        ByteBuffer.wrap(content).putInt(Integer.BYTES, 1);
+        Files.write(file, content);
+
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            assertNull(cache.get(BLOB));
+        }
+        assertEquals(8, Files.size(file));
+    }
+
+    @Test
+    void cutOffEntryIsDropped() throws Exception {
+        Path file = directory.resolve("specs.cache");
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            cache.put(BLOB, List.of(SPEC), List.of());
+        }
+        long complete = Files.size(file);
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            cache.put(BROKEN_BLOB, List.of(SPEC), List.of());
+        }
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 3));
+
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            assertEquals(List.of(SPEC), cache.get(BLOB).specs("topics/orders.yaml"));
+            assertNull(cache.get(BROKEN_BLOB));
+        }
+        assertEquals(complete, Files.size(file));
+    }
+
+    @Test
+    void flushedEntriesAreReadFromTheFile() throws Exception {
+        Path file = directory.resolve("specs.cache");
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            cache.put(BLOB, List.of(SPEC), List.of());
+            cache.flush();
+            cache.put(BROKEN_BLOB, List.of(), List.of("'partitions' must be a positive integer"));
+
+            assertEquals(List.of(SPEC), cache.get(BLOB).specs("topics/orders.yaml"));
+            assertEquals(List.of("'partitions' must be a positive integer"), cache.get(BROKEN_BLOB).errors());
+        }
+    }
+
+    @Test
+    void fileThatCannotBeEncodedIsNotCached() throws Exception {
+        Path file = directory.resolve("specs.cache");
+        TopicSpec large = new TopicSpec("orders", new ClusterKey("main", "prod"), 12, 3,
+                Map.of("message.format", "x".repeat(70_000)), "topics/orders.yaml", Map.of());
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            cache.put(BLOB, List.of(large), List.of());
+            assertNull(cache.get(BLOB));
+        }
+        assertEquals(8, Files.size(file));
+    }
+
+    @Test
+    void secondOpenInTheSameProcessDisablesTheCache() throws Exception {
+        Path file = directory.resolve("specs.cache");
+        Properties properties = new Properties();
+        properties.setProperty("topicSpecCacheFile", file.toString());
+        try (TopicSpecCache cache = new TopicSpecCache(file)) {
+            assertThrows(OverlappingFileLockException.class, () -> new TopicSpecCache(file));
+            assertNull(TopicSpecCache.fromConfig(AppConfig.of(properties)));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.rajitha.kafka.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopicSpecLoaderTest {
+    private static final String TOPIC = """
+            topicName: %s
+            spec:
+              target-cluster:
+                name: main
+                env: %s
+              partitions: 3
+              replication-factor: 3
+            """;
+
+    @Test
+    void topicDeclaredTwiceIsALoadError() {
+        Map<String, String> files = Map.of(
+                "topics/a.yaml", TOPIC.formatted("orders", "prod") + "---\n" + TOPIC.formatted("payments", "prod"),
+                "topics/b.yaml", TOPIC.formatted("orders", "prod"),
+                "topics/c.yaml", TOPIC.formatted("orders", "dev"));
+
+        TopicSpecLoader.LoadResult result = new TopicSpecLoader().load(List.of("topics/a.yaml", "topics/b.yaml", "topics/c.yaml"),
+                path -> new ByteArrayInputStream(files.get(path).getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("payments/prod", "orders/dev"),
+                result.specs().stream().map(spec -> spec.topicName() + "/" + spec.cluster().env()).toList());
+        String error = "topic 'orders' of cluster " + result.specs().get(0).cluster() + " is declared 2 times in topics/a.yaml, topics/b.yaml";
+        assertEquals(Map.of("topics/a.yaml", List.of(error), "topics/b.yaml", List.of(error)), result.errors());
+    }
+}